@@ -0,0 +1,173 @@
+package it.ngoton.bench;
+
+import it.ngoton.MyBigDecimal;
+import it.ngoton.MyBigInteger;
+import it.ngoton.MyMath;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The operations linear in the number of digits, against {@link BigInteger} and {@link BigDecimal}, from 10 to 1M
+ * digits. {@code words*} run the 64-bit word kernels of {@link MyMath} on the same numbers.
+ * <p>{@code java -jar target/benchmarks.jar LinearBenchmark -p digits=1000 -prof gc -rf json}
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LinearBenchmark {
+    @Param({"10", "100", "1000", "10000", "100000", "1000000"})
+    public int digits;
+
+    private String textA;
+    private String decimalText;
+    private MyBigInteger myA, myB;
+    private BigInteger bigA, bigB;
+    private long[] wordsA, wordsB;
+    private MyBigDecimal myDecimalA, myDecimalB;
+    private BigDecimal bigDecimalA, bigDecimalB;
+
+    @Setup
+    public void setUp() {
+        textA = Operands.randomDigits(1, digits);
+        String textB = Operands.randomDigits(2, digits);
+        myA = new MyBigInteger(textA);
+        myB = new MyBigInteger(textB);
+        bigA = new BigInteger(textA);
+        bigB = new BigInteger(textB);
+        wordsA = Operands.words(bigA);
+        wordsB = Operands.words(bigB);
+        decimalText = Operands.withPoint(textA);
+        myDecimalA = new MyBigDecimal(decimalText);
+        myDecimalB = new MyBigDecimal(Operands.withPoint(textB));
+        bigDecimalA = new BigDecimal(decimalText);
+        bigDecimalB = new BigDecimal(Operands.withPoint(textB));
+    }
+
+    @Benchmark
+    public MyBigInteger myBigIntegerAdd() {
+        return myA.add(myB);
+    }
+
+    @Benchmark
+    public BigInteger bigIntegerAdd() {
+        return bigA.add(bigB);
+    }
+
+    @Benchmark
+    public long[] wordsAdd() {
+        long[] sum = new long[Math.max(wordsA.length, wordsB.length) + 1];
+        sum[sum.length - 1] = MyMath.add(wordsA, wordsB, sum);
+        return sum;
+    }
+
+    @Benchmark
+    public MyBigInteger myBigIntegerSubtract() {
+        return myA.subtract(myB);
+    }
+
+    @Benchmark
+    public BigInteger bigIntegerSubtract() {
+        return bigA.subtract(bigB);
+    }
+
+    @Benchmark
+    public long[] wordsSubtract() {
+        long[] difference = new long[Math.max(wordsA.length, wordsB.length)];
+        MyMath.subtract(wordsA, wordsB, difference);
+        return difference;
+    }
+
+    @Benchmark
+    public int myBigIntegerCompare() {
+        return myA.compareTo(myB);
+    }
+
+    @Benchmark
+    public int bigIntegerCompare() {
+        return bigA.compareTo(bigB);
+    }
+
+    @Benchmark
+    public int wordsCompare() {
+        return MyMath.compare(wordsA, wordsB);
+    }
+
+    @Benchmark
+    public MyBigInteger myBigIntegerParse() {
+        return new MyBigInteger(textA);
+    }
+
+    @Benchmark
+    public BigInteger bigIntegerParse() {
+        return new BigInteger(textA);
+    }
+
+    @Benchmark
+    public String myBigIntegerToString() {
+        return myA.toString();
+    }
+
+    @Benchmark
+    public String bigIntegerToString() {
+        return bigA.toString();
+    }
+
+    @Benchmark
+    public MyBigInteger myBigIntegerReverseDigits() {
+        return myA.reverseDigits();
+    }
+
+    /**
+     * What {@link MyBigInteger#reverseDigits()} replaces: a round trip through the text.
+     */
+    @Benchmark
+    public MyBigInteger myBigIntegerReverseText() {
+        return new MyBigInteger(new StringBuilder(myA.toString()).reverse().toString());
+    }
+
+    @Benchmark
+    public MyBigDecimal myBigDecimalAdd() {
+        return myDecimalA.add(myDecimalB);
+    }
+
+    @Benchmark
+    public BigDecimal bigDecimalAdd() {
+        return bigDecimalA.add(bigDecimalB);
+    }
+
+    @Benchmark
+    public MyBigDecimal myBigDecimalParse() {
+        return new MyBigDecimal(decimalText);
+    }
+
+    @Benchmark
+    public BigDecimal bigDecimalParse() {
+        return new BigDecimal(decimalText);
+    }
+
+    @Benchmark
+    public String myBigDecimalToString() {
+        return myDecimalA.toString();
+    }
+
+    @Benchmark
+    public String bigDecimalToString() {
+        return bigDecimalA.toPlainString();
+    }
+}
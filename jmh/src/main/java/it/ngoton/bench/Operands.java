@@ -0,0 +1,57 @@
+package it.ngoton.bench;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+/**
+ * Random operands shared by the benchmarks, the same for every run (fixed seeds).
+ */
+final class Operands {
+    private Operands() {
+    }
+
+    /**
+     * {@code length} random decimal digits, without a leading zero.
+     */
+    static String randomDigits(long seed, int length) {
+        Random random = new Random(seed * 31 + length);
+        char[] digits = new char[length];
+        digits[0] = (char) ('1' + random.nextInt(9));
+        for (int i = 1; i < length; i++) {
+            digits[i] = (char) ('0' + random.nextInt(10));
+        }
+        return new String(digits);
+    }
+
+    /**
+     * The same digits with the point in the middle.
+     */
+    static String withPoint(String digits) {
+        int point = (digits.length() + 1) / 2;
+        return point == digits.length() ? digits : digits.substring(0, point) + "." + digits.substring(point);
+    }
+
+    /**
+     * The magnitude as 64-bit words, least significant first, for the kernels of {@link it.ngoton.MyMath}.
+     */
+    static long[] words(BigInteger value) {
+        long[] words = new long[Math.max(1, (value.bitLength() + 63) / 64)];
+        for (int i = 0; i < words.length; i++) {
+            words[i] = value.shiftRight(64 * i).longValue();
+        }
+        return words;
+    }
+
+    /**
+     * The smallest {@code n} with at least {@code digits} digits in {@code n!}: {@code log10(n!) = log10(2) + ... + log10(n)}
+     */
+    static int factorialArgument(long digits) {
+        double log = 0;
+        int n = 1;
+        while (log + 1 < digits) {
+            n++;
+            log += Math.log10(n);
+        }
+        return n;
+    }
+}
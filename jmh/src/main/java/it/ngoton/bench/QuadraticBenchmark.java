@@ -0,0 +1,152 @@
+package it.ngoton.bench;
+
+import it.ngoton.MyBigDecimal;
+import it.ngoton.MyBigInteger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The operations that grow faster than the number of digits, against {@link BigInteger} and {@link BigDecimal}.
+ * The schoolbook algorithms are quadratic, so the default sizes stop at 10000 digits; larger ones run with
+ * {@code -p digits=100000,1000000}.
+ * <pre>
+ *   multiply    a * b, both digits long
+ *   divide/mod  a / b, a digits long, b digits/2 long
+ *   pow         b^e, b 8 digits, result ~digits long
+ *   factorial   n!, n! ~digits long
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class QuadraticBenchmark {
+    @Param({"10", "100", "1000", "10000"})
+    public int digits;
+
+    private MyBigInteger myA, myB, myHalf, myBase;
+    private BigInteger bigA, bigB, bigHalf, bigBase;
+    private MyBigDecimal myDecimalA, myDecimalB, myDecimalHalf;
+    private BigDecimal bigDecimalA, bigDecimalB, bigDecimalHalf;
+    private int exponent;
+    private int factorial;
+    private int scale;
+
+    @Setup
+    public void setUp() {
+        String a = Operands.randomDigits(1, digits);
+        String b = Operands.randomDigits(2, digits);
+        String half = Operands.randomDigits(3, Math.max(1, digits / 2));
+        myA = new MyBigInteger(a);
+        myB = new MyBigInteger(b);
+        myHalf = new MyBigInteger(half);
+        bigA = new BigInteger(a);
+        bigB = new BigInteger(b);
+        bigHalf = new BigInteger(half);
+        String base = a.length() > 8 ? a.substring(0, 8) : a;
+        myBase = new MyBigInteger(base);
+        bigBase = new BigInteger(base);
+        exponent = Math.max(1, digits / 8);
+        factorial = Operands.factorialArgument(digits);
+        myDecimalA = new MyBigDecimal(Operands.withPoint(a));
+        myDecimalB = new MyBigDecimal(Operands.withPoint(b));
+        myDecimalHalf = new MyBigDecimal(Operands.withPoint(half));
+        bigDecimalA = new BigDecimal(Operands.withPoint(a));
+        bigDecimalB = new BigDecimal(Operands.withPoint(b));
+        bigDecimalHalf = new BigDecimal(Operands.withPoint(half));
+        scale = bigDecimalA.scale() + 10; // MyBigDecimal.divide keeps 10 more fraction digits
+    }
+
+    @Benchmark
+    public MyBigInteger myBigIntegerMultiply() {
+        return myA.multiply(myB);
+    }
+
+    @Benchmark
+    public BigInteger bigIntegerMultiply() {
+        return bigA.multiply(bigB);
+    }
+
+    @Benchmark
+    public MyBigInteger myBigIntegerDivide() {
+        return myA.divide(myHalf);
+    }
+
+    @Benchmark
+    public BigInteger bigIntegerDivide() {
+        return bigA.divide(bigHalf);
+    }
+
+    @Benchmark
+    public MyBigInteger myBigIntegerMod() {
+        return myA.mod(myHalf);
+    }
+
+    /**
+     * {@link MyBigInteger#mod} truncates like {@link BigInteger#remainder}.
+     */
+    @Benchmark
+    public BigInteger bigIntegerMod() {
+        return bigA.remainder(bigHalf);
+    }
+
+    @Benchmark
+    public MyBigInteger myBigIntegerPow() {
+        return myBase.pow(exponent);
+    }
+
+    @Benchmark
+    public BigInteger bigIntegerPow() {
+        return bigBase.pow(exponent);
+    }
+
+    @Benchmark
+    public MyBigInteger myBigIntegerFactorial() {
+        return MyBigInteger.factorial(factorial);
+    }
+
+    @Benchmark
+    public BigInteger bigIntegerFactorial() {
+        BigInteger result = BigInteger.ONE;
+        for (int i = 2; i <= factorial; i++) {
+            result = result.multiply(BigInteger.valueOf(i));
+        }
+        return result;
+    }
+
+    @Benchmark
+    public MyBigDecimal myBigDecimalMultiply() {
+        return myDecimalA.multiply(myDecimalB);
+    }
+
+    @Benchmark
+    public BigDecimal bigDecimalMultiply() {
+        return bigDecimalA.multiply(bigDecimalB);
+    }
+
+    @Benchmark
+    public MyBigDecimal myBigDecimalDivide() {
+        return myDecimalA.divide(myDecimalHalf);
+    }
+
+    @Benchmark
+    public BigDecimal bigDecimalDivide() {
+        return bigDecimalA.divide(bigDecimalHalf, scale, RoundingMode.DOWN);
+    }
+}
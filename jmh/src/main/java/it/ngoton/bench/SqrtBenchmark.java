@@ -0,0 +1,51 @@
+package it.ngoton.bench;
+
+import it.ngoton.MyBigInteger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigInteger;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link MyBigInteger#sqrt()} is a binary search of squares, so the default sizes stop at 100 digits.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SqrtBenchmark {
+    @Param({"10", "100"})
+    public int digits;
+
+    private MyBigInteger myA;
+    private BigInteger bigA;
+
+    @Setup
+    public void setUp() {
+        String a = Operands.randomDigits(1, digits);
+        myA = new MyBigInteger(a);
+        bigA = new BigInteger(a);
+    }
+
+    @Benchmark
+    public MyBigInteger myBigIntegerSqrt() {
+        return myA.sqrt();
+    }
+
+    @Benchmark
+    public BigInteger bigIntegerSqrt() {
+        return bigA.sqrt();
+    }
+}
@@ -0,0 +1,429 @@
+package it.ngoton.problems;
+
+import it.ngoton.MySwap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.ProfilerException;
+import org.openjdk.jmh.profile.ProfilerFactory;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.ProfilerConfig;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Đo các thuật toán của {@link DSAArrays} bằng JMH, trên các mảng sinh ngẫu nhiên từ 1000 đến 100 triệu phần tử.
+ * <p>Mỗi nhóm là 1 lớp con, chạy với 3 phân phối:
+ * <pre>
+ *   nhóm        uniform                      skewed                        adversarial
+ *   Missing     hoán vị 1..N thiếu 1 số      đã sort                       đã sort giảm dần
+ *   Duplicate   số trùng ở vị trí ngẫu nhiên số trùng ở đầu mảng           1 chu trình dài N, số trùng ở cuối
+ *   All         ngẫu nhiên 1..N              ít giá trị khác nhau          không có số trùng
+ *   Pairs       ngẫu nhiên 0..N, k = N       ít giá trị khác nhau          tất cả = k/2 (N - 1 cặp)
+ *   Dedupe      ngẫu nhiên 0..N              ít giá trị khác nhau          không có số trùng, giảm dần
+ *   Zeroes      10% số 0                     90% số 0                      50% số 0 ngẫu nhiên (rẽ nhánh khó đoán)
+ *   Three       0, 1, 2 ngẫu nhiên           90% số 1                      2..2 1..1 0..0 (đổi chỗ nhiều nhất)
+ * </pre>
+ * Các thuật toán sửa mảng đầu vào chạy trên 1 bản sao, thời gian sao chép được đo riêng ({@code copy}) để trừ ra.
+ * <p>{@link #main} chạy kèm {@code -prof gc} (bộ nhớ cấp phát), và {@code -prof perfnorm} (cache miss, branch miss
+ * mỗi lần gọi) nếu máy có {@code perf} của Linux, các tham số khác của JMH giữ nguyên:
+ * <pre>
+ *   java -cp target/benchmarks.jar it.ngoton.problems.DSAArraysBenchmark Pairs -p size=100000000 -rf json
+ * </pre>
+ */
+public class DSAArraysBenchmark {
+
+    public static void main(String[] args) throws CommandLineOptionException, RunnerException {
+        CommandLineOptions options = new CommandLineOptions(args);
+        OptionsBuilder builder = new OptionsBuilder();
+        builder.parent(options);
+        if (options.getIncludes().isEmpty()) builder.include(DSAArraysBenchmark.class.getSimpleName());
+        if (options.getProfilers().isEmpty()) {
+            builder.addProfiler("gc");
+            if (perfnormAvailable()) builder.addProfiler("perfnorm");
+        }
+        new Runner(builder.build()).run();
+    }
+
+    /**
+     * JMH dừng cả lần chạy nếu không tạo được profiler, nên thử tạo {@code perfnorm} trước
+     * (không có {@code perf}, không phải Linux, không có quyền đọc bộ đếm...).
+     */
+    private static boolean perfnormAvailable() {
+        try {
+            ProfilerFactory.getProfilerOrException(new ProfilerConfig("perfnorm"));
+            return true;
+        }
+        catch (ProfilerException e) {
+            System.err.println("perfnorm is not available, running with gc only: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Kích thước và phân phối chung của các nhóm. 100 triệu phần tử là 400MB mỗi mảng, nên mỗi fork chạy với heap 8GB.
+     * <p>Đo thời gian trung bình mỗi lần gọi: mỗi lần gọi xử lý cả mảng, từ vài micro giây tới vài giây, nên thời gian
+     * mỗi lần gọi so sánh trực tiếp được giữa các kích thước. Throughput chỉ là nghịch đảo của nó,
+     * chạy với {@code -bm thrpt} nếu cần.
+     */
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 3, time = 1)
+    @Measurement(iterations = 5, time = 1)
+    @Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+    @State(Scope.Benchmark)
+    public abstract static class Input {
+        @Param({"1000", "1000000", "100000000"})
+        public int size;
+
+        @Param({"uniform", "skewed", "adversarial"})
+        public String distribution;
+
+        int[] arr;
+
+        @Setup
+        public void setUp() {
+            arr = generate(size, new Random(size * 31L + distribution.hashCode()));
+        }
+
+        abstract int[] generate(int n, Random random);
+
+        boolean is(String name) {
+            return distribution.equals(name);
+        }
+    }
+
+    public static class Missing extends Input {
+        @Override
+        int[] generate(int n, Random random) {
+            int[] values = permutation(n, random);
+            if (!is("uniform")) Arrays.sort(values);
+            if (is("adversarial")) MySwap.reverse(values, 0, n);
+            return Arrays.copyOf(values, n - 1); // thiếu values[n-1]
+        }
+
+        @Benchmark
+        public int findMissingNumber() {
+            return DSAArrays.findMissingNumber(arr, size);
+        }
+
+        @Benchmark
+        public int findMissingNumberXor() {
+            return DSAArrays.findMissingNumberXor(arr, size);
+        }
+
+        @Benchmark
+        public int parallelFindMissingNumber() {
+            return DSAArrays.parallelFindMissingNumber(arr, size);
+        }
+    }
+
+    /**
+     * N + 1 số từ 1 - N, đúng 1 số xuất hiện 2 lần (điều kiện của Floyd).
+     */
+    public static class Duplicate extends Input {
+        @Override
+        int[] generate(int n, Random random) {
+            int[] arr = new int[n + 1];
+            if (is("adversarial")) {
+                // Floyd đi theo i -> arr[i]: 0 -> order[0] -> order[1] -> ... -> order[n-1] -> order[0], 1 chu trình dài N.
+                // order[n-1] = N nên số trùng order[0] nằm ở arr[0] và arr[N]: các bản dùng mảng tần số phải duyệt hết.
+                int[] order = permutation(n, random);
+                for (int j = 0; j < n; j++) {
+                    if (order[j] == n) {
+                        order[j] = order[n - 1];
+                        order[n - 1] = n;
+                        break;
+                    }
+                }
+                arr[0] = order[0];
+                for (int j = 0; j < n - 1; j++) {
+                    arr[order[j]] = order[j + 1];
+                }
+                arr[order[n - 1]] = order[0];
+            }
+            else {
+                System.arraycopy(permutation(n, random), 0, arr, 0, n);
+                boolean skewed = is("skewed");
+                int position = skewed ? Math.min(n, 1 + random.nextInt(Math.max(1, n / 100))) : random.nextInt(n + 1);
+                int duplicate = skewed ? arr[0] : 1 + random.nextInt(n); // skewed: cả 2 lần xuất hiện ở đầu mảng
+                if (position < n) arr[n] = arr[position];
+                arr[position] = duplicate;
+            }
+            return arr;
+        }
+
+        @Benchmark
+        public int findDuplicateNumber() {
+            return DSAArrays.findDuplicateNumber(arr);
+        }
+
+        @Benchmark
+        public int findDuplicateNumberBitset() {
+            return DSAArrays.findDuplicateNumberBitset(arr);
+        }
+
+        @Benchmark
+        public int parallelFindDuplicateNumber() {
+            return DSAArrays.parallelFindDuplicateNumber(arr);
+        }
+
+        @Benchmark
+        public int findDuplicateFloyd() {
+            return DSAArrays.findDuplicateFloyd(arr);
+        }
+    }
+
+    public static class All extends Input {
+        @Override
+        int[] generate(int n, Random random) {
+            return is("adversarial") ? permutation(n, random) : values(n, n, distribution, random, 1);
+        }
+
+        @Benchmark
+        public int[] findAllDuplicates() {
+            return DSAArrays.findAllDuplicates(arr);
+        }
+
+        @Benchmark
+        public int[] parallelFindAllDuplicates() {
+            return DSAArrays.parallelFindAllDuplicates(arr);
+        }
+    }
+
+    public static class Pairs extends Input {
+        private long pairs;
+        private final IntPairSink sink = (first, second) -> pairs += first ^ second;
+
+        @Override
+        int[] generate(int n, Random random) {
+            return pairs(n, distribution, random);
+        }
+
+        @Benchmark
+        public long findPairsEqualsToK() {
+            return DSAArrays.findPairsEqualsToK(arr, size, sink) + pairs;
+        }
+
+        @Benchmark
+        public long parallelFindPairsEqualsToK() {
+            return DSAArrays.parallelFindPairsEqualsToK(arr, size, sink) + pairs;
+        }
+
+        @Benchmark
+        public int[] copy() {
+            return arr.clone();
+        }
+
+        @Benchmark
+        public long findPairsEqualsToKSorted() {
+            return DSAArrays.findPairsEqualsToKSorted(arr.clone(), size, sink) + pairs;
+        }
+    }
+
+    /**
+     * Bản gốc của {@link DSAArrays#findPairsEqualsToK(int[], int)} với HashMap&lt;Integer, Integer&gt;, để so sánh.
+     * 100 triệu phần tử đóng hộp không vừa heap 8GB, nên chỉ đo đến 1 triệu.
+     */
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 3, time = 1)
+    @Measurement(iterations = 5, time = 1)
+    @Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+    @State(Scope.Benchmark)
+    public static class BoxedPairs {
+        @Param({"1000", "1000000"})
+        public int size;
+
+        @Param({"uniform", "skewed", "adversarial"})
+        public String distribution;
+
+        private int[] arr;
+        private long pairs;
+
+        @Setup
+        public void setUp() {
+            arr = pairs(size, distribution, new Random(size * 31L + distribution.hashCode()));
+        }
+
+        @Benchmark
+        public long boxedHashMap() {
+            int k = size;
+            HashMap<Integer, Integer> elementIndexMap = new HashMap<>();
+            for (int i = 0; i < arr.length; i++) {
+                elementIndexMap.put(arr[i], i);
+            }
+            int count = 0;
+            for (int i = 0; i < arr.length; i++) {
+                if (elementIndexMap.get(k - arr[i]) != null && elementIndexMap.get(k - arr[i]) != i) {
+                    pairs += arr[i] ^ (k - arr[i]);
+                    count++;
+                }
+            }
+            return count + pairs;
+        }
+    }
+
+    public static class Dedupe extends Input {
+        @Override
+        int[] generate(int n, Random random) {
+            if (is("adversarial")) {
+                int[] arr = permutation(n, random);
+                Arrays.sort(arr);
+                MySwap.reverse(arr, 0, n);
+                return arr;
+            }
+            return values(n, n, distribution, random, 0);
+        }
+
+        @Benchmark
+        public int[] copy() {
+            return arr.clone();
+        }
+
+        @Benchmark
+        public int[] removeDuplicates() {
+            return DSAArrays.removeDuplicates(arr.clone());
+        }
+
+        @Benchmark
+        public int parallelDedupe() {
+            return DSAArrays.parallelDedupe(arr.clone());
+        }
+
+        @Benchmark
+        public int dedupePreservingOrder() {
+            return DSAArrays.dedupePreservingOrder(arr.clone());
+        }
+    }
+
+    public static class Zeroes extends Input {
+        @Override
+        int[] generate(int n, Random random) {
+            int percent = is("uniform") ? 10 : is("skewed") ? 90 : 50;
+            int[] arr = new int[n];
+            for (int i = 0; i < n; i++) {
+                arr[i] = random.nextInt(100) < percent ? 0 : 1 + random.nextInt(1000);
+            }
+            return arr;
+        }
+
+        @Benchmark
+        public int[] copy() {
+            return arr.clone();
+        }
+
+        @Benchmark
+        public int[] moveZeroes() {
+            return DSAArrays.moveZeroes(arr.clone());
+        }
+
+        @Benchmark
+        public int compactNonZero() {
+            return DSAArrays.compactNonZero(arr.clone());
+        }
+
+        @Benchmark
+        public int compact() {
+            return DSAArrays.compact(arr.clone(), value -> value != 0);
+        }
+    }
+
+    public static class Three extends Input {
+        @Override
+        int[] generate(int n, Random random) {
+            int[] arr = new int[n];
+            for (int i = 0; i < n; i++) {
+                if (is("adversarial")) {
+                    arr[i] = 2 - (int) (3L * i / n);
+                }
+                else if (is("skewed")) {
+                    arr[i] = random.nextInt(10) == 0 ? 2 * random.nextInt(2) : 1;
+                }
+                else {
+                    arr[i] = random.nextInt(3);
+                }
+            }
+            return arr;
+        }
+
+        @Benchmark
+        public int[] copy() {
+            return arr.clone();
+        }
+
+        @Benchmark
+        public int[] sortThree() {
+            return DSAArrays.sortThree(arr.clone());
+        }
+
+        @Benchmark
+        public int[] parallelCountingSort() {
+            return DSAArrays.parallelCountingSort(arr.clone(), 3);
+        }
+
+        @Benchmark
+        public int[] arraysSort() {
+            int[] copy = arr.clone();
+            Arrays.sort(copy);
+            return copy;
+        }
+    }
+
+    /**
+     * Đầu vào của nhóm Pairs với k = N: adversarial là N số k/2, mọi cặp đều có tổng bằng k.
+     */
+    static int[] pairs(int n, String distribution, Random random) {
+        if (distribution.equals("adversarial")) {
+            int[] arr = new int[n];
+            Arrays.fill(arr, n / 2);
+            return arr;
+        }
+        return values(n, n, distribution, random, 0);
+    }
+
+    /**
+     * Các số 1 - N theo thứ tự ngẫu nhiên (Fisher-Yates).
+     */
+    static int[] permutation(int n, Random random) {
+        int[] values = new int[n];
+        for (int i = 0; i < n; i++) {
+            values[i] = i + 1;
+        }
+        MySwap.shuffle(values, random);
+        return values;
+    }
+
+    /**
+     * {@code length} số trong khoảng {@code [min, min + bound)}: uniform đều nhau, skewed dồn về các số nhỏ
+     * (u^4 với u ngẫu nhiên trong [0, 1), 56% các số nằm trong 10% đầu tiên).
+     */
+    static int[] values(int length, int bound, String distribution, Random random, int min) {
+        int[] values = new int[length];
+        for (int i = 0; i < length; i++) {
+            if (distribution.equals("skewed")) {
+                double u = random.nextDouble();
+                values[i] = min + (int) (bound * u * u * u * u);
+            }
+            else {
+                values[i] = min + random.nextInt(bound);
+            }
+        }
+        return values;
+    }
+}
@@ -0,0 +1,109 @@
+package it.ngoton;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * The plain text of {@code digits * 10^-scale}, produced chunk by chunk straight from the digit array.
+ * <p>Every character is computed from its position, so only one chunk buffer is ever needed:
+ * <pre>
+ *   digits = [3 2 1], scale = 5, negative
+ *   position   0   1   2   3   4   5   6   7   8
+ *   text       -   0   .   0   0   1   2   3
+ *              sign int '.' fraction: digit index scale-1-k, 0 above the last digit
+ * </pre>
+ */
+class DecimalText {
+    static final int CHUNK = 8192;
+
+    private final int[] digits;
+    private final int scale;
+    private final int signLength;
+    private final int integerLength;
+    private final long length;
+
+    DecimalText(int[] digits, boolean negative, int scale) {
+        this.digits = digits;
+        this.scale = scale;
+        this.signLength = negative ? 1 : 0;
+        this.integerLength = Math.max(digits.length - scale, 1); // "0" when the number is between 0 and 1
+        this.length = signLength + integerLength + (scale > 0 ? 1L + scale : 0);
+    }
+
+    long length() {
+        return length;
+    }
+
+    /**
+     * Fills {@code buffer} with the characters starting at {@code position}.
+     * @return the number of characters written
+     */
+    int fill(long position, byte[] buffer) {
+        int count = (int) Math.min(buffer.length, length - position);
+        for (int i = 0; i < count; i++) {
+            buffer[i] = at(position + i);
+        }
+        return count;
+    }
+
+    private byte at(long position) {
+        if (position < signLength) return '-';
+        long p = position - signLength;
+        if (p < integerLength) {
+            int index = digits.length - 1 - (int) p;
+            return (byte) (index >= scale ? '0' + digits[index] : '0');
+        }
+        p -= integerLength;
+        if (p == 0) return '.';
+        int index = scale - (int) p; // p = 1 is the first fraction digit, index scale - 1
+        return (byte) (index < digits.length ? '0' + digits[index] : '0');
+    }
+
+    void writeAsciiTo(OutputStream out) throws IOException {
+        byte[] buffer = new byte[(int) Math.min(CHUNK, length)];
+        for (long position = 0; position < length; ) {
+            int count = fill(position, buffer);
+            out.write(buffer, 0, count);
+            position += count;
+        }
+    }
+
+    void writeAsciiTo(WritableByteChannel out) throws IOException {
+        byte[] buffer = new byte[(int) Math.min(CHUNK, length)];
+        ByteBuffer wrapped = ByteBuffer.wrap(buffer);
+        for (long position = 0; position < length; ) {
+            int count = fill(position, buffer);
+            wrapped.clear().limit(count);
+            while (wrapped.hasRemaining()) {
+                out.write(wrapped);
+            }
+            position += count;
+        }
+    }
+
+    void appendTo(Appendable out) throws IOException {
+        byte[] buffer = new byte[(int) Math.min(CHUNK, length)];
+        char[] chars = new char[buffer.length];
+        CharBuffer wrapped = CharBuffer.wrap(chars);
+        for (long position = 0; position < length; ) {
+            int count = fill(position, buffer);
+            for (int i = 0; i < count; i++) {
+                chars[i] = (char) buffer[i];
+            }
+            if (out instanceof StringBuilder) {
+                ((StringBuilder) out).append(chars, 0, count); // append(CharSequence) would copy char by char
+            }
+            else if (out instanceof Writer) {
+                ((Writer) out).write(chars, 0, count); // Writer.append would copy the chunk into a String
+            }
+            else {
+                out.append(wrapped, 0, count);
+            }
+            position += count;
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package it.ngoton;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Evaluates a file of expressions, one per line, with {@link MyExpressionCache#calculate(String)}.
+ * <p>The input is read with a {@link FileChannel} in chunks of about {@code chunkBytes}, cut on line boundaries.
+ * Every chunk is evaluated by a worker thread, and the results are written in the input order:
+ * <pre>
+ *   read chunk 1 -> submit ─┐
+ *   read chunk 2 -> submit ─┼─ workers ─> wait for chunk 1 -> write, wait for chunk 2 -> write ...
+ *   read chunk 3 -> submit ─┘
+ * </pre>
+ * At most {@code 2 * threads} chunks are in flight, so memory stays bounded whatever the size of the file.
+ * <p>Each input line gives exactly one output line: the result, or {@code ERROR <exception>} when that line
+ * fails. An error never stops the batch.
+ */
+public class MyBatchCalculator {
+    private final int threads;
+    private final int chunkBytes;
+    private final MyExpressionCache cache;
+
+    public MyBatchCalculator() {
+        this(Runtime.getRuntime().availableProcessors(), 1 << 20, MyExpressionCache.DEFAULT);
+    }
+
+    public MyBatchCalculator(int threads, int chunkBytes, MyExpressionCache cache) {
+        if (threads < 1 || chunkBytes < 1) throw new IllegalArgumentException("Threads and chunk size must be positive");
+        this.threads = threads;
+        this.chunkBytes = chunkBytes;
+        this.cache = cache;
+    }
+
+    /**
+     * Usage: {@code MyBatchCalculator <input> <output> [threads]}
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: MyBatchCalculator <input> <output> [threads]");
+            System.exit(2);
+        }
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        Report report = new MyBatchCalculator(threads, 1 << 20, MyExpressionCache.DEFAULT)
+                .run(Paths.get(args[0]), Paths.get(args[1]));
+        System.out.println(report);
+    }
+
+    public Report run(Path input, Path output) throws IOException {
+        long start = System.nanoTime();
+        Report report = new Report();
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
+        try (FileChannel in = FileChannel.open(input, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                     StandardOpenOption.TRUNCATE_EXISTING)) {
+            ArrayDeque<Future<Chunk>> pending = new ArrayDeque<>();
+            ByteBuffer buffer = ByteBuffer.allocate(chunkBytes);
+            int scanned = 0; // the bytes before it hold no '\n'
+            while (true) {
+                int read = in.read(buffer);
+                if (read < 0) break;
+                report.bytes += read;
+                int end = lastLineEnd(buffer, scanned);
+                scanned = buffer.position();
+                if (end < 0) {
+                    if (!buffer.hasRemaining()) { // a line longer than the buffer
+                        ByteBuffer larger = ByteBuffer.allocate(buffer.capacity() * 2);
+                        buffer.flip();
+                        buffer = larger.put(buffer);
+                    }
+                    continue;
+                }
+                byte[] lines = new byte[end];
+                buffer.flip();
+                buffer.get(lines);
+                buffer.compact(); // keep the beginning of the next line
+                scanned = buffer.position();
+                pending.add(workers.submit(() -> evaluate(lines, lines.length)));
+                if (pending.size() >= 2 * threads) {
+                    write(pending.poll(), out, report);
+                }
+            }
+            if (buffer.position() > 0) { // last line without line break
+                byte[] lines = new byte[buffer.position()];
+                buffer.flip();
+                buffer.get(lines);
+                pending.add(workers.submit(() -> evaluate(lines, lines.length)));
+            }
+            while (!pending.isEmpty()) {
+                write(pending.poll(), out, report);
+            }
+        }
+        finally {
+            workers.shutdownNow();
+        }
+        report.elapsedNanos = System.nanoTime() - start;
+        return report;
+    }
+
+    /**
+     * @param from the bytes before it are known to hold no {@code '\n'}, they are not scanned again
+     * @return the length of the bytes up to and including the last {@code '\n'}, {@code -1} if there is none
+     */
+    private static int lastLineEnd(ByteBuffer buffer, int from) {
+        for (int i = buffer.position() - 1; i >= from; i--) {
+            if (buffer.get(i) == '\n') return i + 1;
+        }
+        return -1;
+    }
+
+    private Chunk evaluate(byte[] bytes, int length) {
+        StringBuilder results = new StringBuilder(length * 2);
+        Chunk chunk = new Chunk();
+        int start = 0;
+        while (start < length) {
+            int end = start;
+            while (end < length && bytes[end] != '\n') {
+                end++;
+            }
+            int lineEnd = end > start && bytes[end - 1] == '\r' ? end - 1 : end;
+            String line = new String(bytes, start, lineEnd - start, StandardCharsets.UTF_8);
+            chunk.lines++;
+            if (!line.isBlank()) {
+                try {
+                    results.append(cache.calculate(line));
+                }
+                catch (RuntimeException | StackOverflowError e) { // MyExpression caps the nesting, this is a last resort
+                    results.append("ERROR ").append(e);
+                    chunk.errors++;
+                }
+            }
+            results.append('\n');
+            start = end + 1;
+        }
+        chunk.output = results.toString().getBytes(StandardCharsets.UTF_8);
+        return chunk;
+    }
+
+    private static void write(Future<Chunk> future, FileChannel out, Report report) throws IOException {
+        Chunk chunk;
+        try {
+            chunk = future.get();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted", e);
+        }
+        catch (ExecutionException e) {
+            throw new IOException("Batch worker failed", e.getCause());
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(chunk.output);
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+        report.lines += chunk.lines;
+        report.errors += chunk.errors;
+    }
+
+    private static class Chunk {
+        private byte[] output;
+        private int lines;
+        private int errors;
+    }
+
+    /**
+     * Throughput figures of one {@link #run}.
+     */
+    public static class Report {
+        private long lines;
+        private long errors;
+        private long bytes;
+        private long elapsedNanos;
+
+        public long lines() {
+            return lines;
+        }
+
+        public long errors() {
+            return errors;
+        }
+
+        public long bytes() {
+            return bytes;
+        }
+
+        public long elapsedNanos() {
+            return elapsedNanos;
+        }
+
+        public double linesPerSecond() {
+            return lines * 1e9 / Math.max(elapsedNanos, 1);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d lines, %d errors, %.1f MB in %.3f s: %.0f lines/s, %.1f MB/s",
+                    lines, errors, bytes / 1e6, elapsedNanos / 1e9, linesPerSecond(), bytes / 1e6 * 1e9 / Math.max(elapsedNanos, 1));
+        }
+    }
+}
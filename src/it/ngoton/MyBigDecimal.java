@@ -1,5 +1,13 @@
 package it.ngoton;
 
+import it.ngoton.MyMetrics.Operation;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
 /**
  * A custom BigDecimal for learning purposes.
  * <p>Handling arbitrary-precision floating-point, which exceed the capacity of primitive data types like {@code float, double}
@@ -9,37 +17,169 @@ package it.ngoton;
  * (<code>sign<sup>1bit</sup> exponent<sup>11bit</sup> Mantissa / Significand<sup>52bit</sup></code>)
  * */
 public class MyBigDecimal {
+    /**
+     * Most zeros a positive exponent may append to the digits in {@link #parse}: {@code "1e2000000000"} would need an
+     * 8GB digit array.
+     */
+    static final int MAX_EXPONENT_SHIFT = 100_000_000;
 
     private final MyBigInteger unscaledValue;
     private final int scale;
 
-    private MyBigDecimal(MyBigInteger unscaledValue, int scale) {
+    MyBigDecimal(MyBigInteger unscaledValue, int scale) {
         this.unscaledValue = unscaledValue;
         this.scale = scale;
     }
 
     public MyBigDecimal(String value) {
-        int dotIndex = value.indexOf('.');
-        if (dotIndex == -1) {
-            this.unscaledValue = new MyBigInteger(value);
-            this.scale = 0;
-        }
-        else {
-            String digits = value.replace(".", "");
-            this.unscaledValue = new MyBigInteger(digits);
-            this.scale = value.length() - 1 - dotIndex;
-        }
+        MyBigDecimal parsed = parse(value, 0, value.length());
+        this.unscaledValue = parsed.unscaledValue;
+        this.scale = parsed.scale;
     }
 
     public MyBigDecimal(float value) {
         this(Float.toString(value));
     }
 
+    /**
+     * The decimal value of {@link Double#toString(double)}, i.e. the shortest decimal that rounds back to {@code value}.
+     * <p>{@code new MyBigDecimal(0.1)} is {@code 0.1}, use {@link #exact(double)} for the exact binary value.
+     */
     public MyBigDecimal(double value) {
         this(Double.toString(value));
     }
 
+    /**
+     * Parses {@code text[start, end)} in a single pass, without intermediate strings.
+     * <p>Accepts an optional sign, digits with an optional decimal point and an optional exponent:
+     * {@code "-123.45"}, {@code "+.5"}, {@code "1.5E-7"}, {@code "2e3"}.
+     * <pre>
+     *   "1.5E-7"   digits = [5 1]    fraction digits = 1    exponent = -7
+     *              scale = 1 - (-7) = 8                     => 15 * 10^-8 = 0.00000015
+     *   "2e3"      digits = [2]      scale = 0 - 3 = -3     => 2000, scale 0
+     * </pre>
+     * A negative scale is not supported by this class, the digits are shifted instead: at most
+     * {@value #MAX_EXPONENT_SHIFT} digits, checked before allocating them.
+     * @throws NumberFormatException if the text is not a decimal number, or its exponent is too large
+     */
+    public static MyBigDecimal parse(CharSequence text, int start, int end) {
+        int i = start;
+        int signum = 1;
+        if (i < end && (text.charAt(i) == '-' || text.charAt(i) == '+')) {
+            if (text.charAt(i) == '-') signum = -1;
+            i++;
+        }
+        // Most significant digit first, reversed once the exponent is known
+        int[] digits = new int[end - i];
+        int count = 0;
+        int fractionDigits = -1; // -1 until the decimal point is seen
+        for (; i < end; i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits[count++] = c - '0';
+                if (fractionDigits >= 0) fractionDigits++;
+            }
+            else if (c == '.' && fractionDigits < 0) {
+                fractionDigits = 0;
+            }
+            else if (c == 'e' || c == 'E') {
+                break;
+            }
+            else {
+                throw new NumberFormatException("Invalid character '" + c + "' in " + text.subSequence(start, end));
+            }
+        }
+        if (count == 0) throw new NumberFormatException("No digits in " + text.subSequence(start, end));
+
+        long exponent = 0;
+        if (i < end) { // exponent part
+            i++;
+            boolean negative = false;
+            if (i < end && (text.charAt(i) == '-' || text.charAt(i) == '+')) {
+                negative = text.charAt(i) == '-';
+                i++;
+            }
+            if (i == end) throw new NumberFormatException("Missing exponent in " + text.subSequence(start, end));
+            for (; i < end; i++) {
+                char c = text.charAt(i);
+                if (c < '0' || c > '9') {
+                    throw new NumberFormatException("Invalid exponent in " + text.subSequence(start, end));
+                }
+                exponent = exponent * 10 + (c - '0');
+                if (exponent > Integer.MAX_VALUE) {
+                    throw new NumberFormatException("Exponent overflow in " + text.subSequence(start, end));
+                }
+            }
+            if (negative) exponent = -exponent;
+        }
+
+        long scale = Math.max(fractionDigits, 0) - exponent;
+        if (scale > Integer.MAX_VALUE) throw new NumberFormatException("Scale overflow in " + text.subSequence(start, end));
+        if (-scale > MAX_EXPONENT_SHIFT) {
+            throw new NumberFormatException("Exponent too large (more than " + MAX_EXPONENT_SHIFT + " zeros) in "
+                    + text.subSequence(start, end));
+        }
+        int shift = scale < 0 ? (int) -scale : 0;
+        // Reverse into least significant first, shifted left for a negative scale
+        int[] reversed = new int[count + shift];
+        for (int k = 0; k < count; k++) {
+            reversed[shift + k] = digits[count - 1 - k];
+        }
+        return new MyBigDecimal(new MyBigInteger(reversed, signum), (int) Math.max(scale, 0));
+    }
+
+    /**
+     * Parses the ASCII bytes {@code bytes[offset, offset + length)}, e.g. a field of a CSV line, with the rules of
+     * {@link #parse(CharSequence, int, int)}.
+     */
+    public static MyBigDecimal parse(byte[] bytes, int offset, int length) {
+        return parse(new AsciiSequence(bytes, offset), 0, length);
+    }
+
+    /**
+     * The exact binary value of a {@code double}: <code>mantissa * 2<sup>exponent</sup></code>.
+     * <pre>
+     *   0.375 = 3 * 2^-3 = 3 * 5^3 / 10^3 = 375 * 10^-3     => 0.375
+     *   0.1   = 3602879701896397 * 2^-55                    => 0.1000000000000000055511151231257827021181583404541015625
+     * </pre>
+     * @throws NumberFormatException if {@code value} is infinite or NaN
+     */
+    public static MyBigDecimal exact(double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            throw new NumberFormatException("Infinite or NaN");
+        }
+        long bits = Double.doubleToRawLongBits(value);
+        int signum = bits < 0 ? -1 : 1;
+        int exponent = (int) ((bits >> 52) & 0x7FF);
+        long mantissa = bits & 0xFFFFFFFFFFFFFL;
+        if (exponent == 0) { // subnormal
+            exponent = 1;
+        }
+        else {
+            mantissa |= 1L << 52;
+        }
+        exponent -= 1075;
+        if (mantissa == 0) {
+            return new MyBigDecimal(MyBigInteger.ZERO, 0);
+        }
+        int trailingZeros = Long.numberOfTrailingZeros(mantissa);
+        mantissa >>= trailingZeros;
+        exponent += trailingZeros;
+
+        MyBigInteger unscaled = new MyBigInteger(mantissa * signum);
+        if (exponent >= 0) {
+            return new MyBigDecimal(unscaled.multiply(new MyBigInteger(2).pow(exponent)), 0);
+        }
+        // m / 2^k = m * 5^k / 10^k
+        return new MyBigDecimal(unscaled.multiply(new MyBigInteger(5).pow(-exponent)), -exponent);
+    }
+
     public MyBigDecimal add(MyBigDecimal other) {
+        if (MyMetrics.ENABLED) return MyMetrics.measure(Operation.DECIMAL_ADD, operandDigits(other), () -> sum(other));
+        return sum(other);
+    }
+
+    private MyBigDecimal sum(MyBigDecimal other) {
         // 123.45           scale = 2
         //+ 56.789          scale = 3
         // -------
@@ -59,10 +199,20 @@ public class MyBigDecimal {
     }
 
     public MyBigDecimal subtract(MyBigDecimal other) {
+        if (MyMetrics.ENABLED) return MyMetrics.measure(Operation.DECIMAL_SUBTRACT, operandDigits(other), () -> difference(other));
+        return difference(other);
+    }
+
+    private MyBigDecimal difference(MyBigDecimal other) {
         return this.add(new MyBigDecimal(other.unscaledValue.negate(), other.scale));
     }
 
     public MyBigDecimal multiply(MyBigDecimal other) {
+        if (MyMetrics.ENABLED) return MyMetrics.measure(Operation.DECIMAL_MULTIPLY, operandDigits(other), () -> product(other));
+        return product(other);
+    }
+
+    private MyBigDecimal product(MyBigDecimal other) {
         // 123.45           scale = 2
         //* 56.789          scale = 3
         // -------
@@ -79,6 +229,11 @@ public class MyBigDecimal {
     }
 
     public MyBigDecimal divide(MyBigDecimal other) {
+        if (MyMetrics.ENABLED) return MyMetrics.measure(Operation.DECIMAL_DIVIDE, operandDigits(other), () -> quotient(other));
+        return quotient(other);
+    }
+
+    private MyBigDecimal quotient(MyBigDecimal other) {
         // 12.34 : 2.345
         // 123.4 : 23.45
         // 1234  : 234.5
@@ -111,20 +266,130 @@ public class MyBigDecimal {
         return new MyBigDecimal(quotient, newScale);
     }
 
+    private int operandDigits(MyBigDecimal other) {
+        return unscaledValue.operandDigits(other.unscaledValue);
+    }
+
+    public MyBigInteger unscaledValue() {
+        return unscaledValue;
+    }
+
+    public int scale() {
+        return scale;
+    }
+
+    /**
+     * The nearest {@code double} to this value.
+     * <p>Up to 15 digits and a scale up to 22, both the unscaled value and <code>10<sup>scale</sup></code>
+     * are exact doubles and a single division is correctly rounded. Other values go through {@link Double#parseDouble}.
+     */
+    public double doubleValue() {
+        if (unscaledValue.digits().length <= 15 && scale < POWERS_OF_TEN.length) {
+            return unscaledValue.longValue() / POWERS_OF_TEN[scale];
+        }
+        return Double.parseDouble(toString());
+    }
+
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    /**
+     * Writes the plain representation ({@code -0.00123}) to {@code out}, without building an intermediate String.
+     * @return {@code out}
+     */
+    public StringBuilder appendTo(StringBuilder out) {
+        try {
+            text().appendTo(out);
+        }
+        catch (IOException e) {
+            throw new AssertionError(e); // StringBuilder does not throw
+        }
+        return out;
+    }
+
+    /**
+     * Writes the plain representation to {@code out} in chunks of {@value DecimalText#CHUNK} characters: with a
+     * {@link java.io.Writer} or a stream the memory used is fixed, whatever the number of digits.
+     * @return {@code out}
+     * @see #appendTo(StringBuilder)
+     */
+    public <A extends Appendable> A appendTo(A out) throws IOException {
+        text().appendTo(out);
+        return out;
+    }
+
+    /**
+     * Writes the plain representation to {@code out} as ASCII bytes, one byte per character.
+     * <p>Named apart from {@link #appendTo(Appendable)} because a {@link java.io.PrintStream} is both.
+     */
+    public void writeAsciiTo(OutputStream out) throws IOException {
+        text().writeAsciiTo(out);
+    }
+
+    /**
+     * @see #writeAsciiTo(OutputStream)
+     */
+    public void writeAsciiTo(WritableByteChannel out) throws IOException {
+        text().writeAsciiTo(out);
+    }
+
+    /**
+     *   unscaled = [5 4 3 2 1], scale = 2  =>  123.45
+     *   unscaled = [3 2 1],     scale = 5  =>  0.00123
+     */
+    private DecimalText text() {
+        return new DecimalText(unscaledValue.digits(), unscaledValue.isNegative(), scale);
+    }
+
+    /**
+     * Like {@link java.math.BigDecimal#hashCode()}, {@code 1.5} and {@code 1.50} are different values.
+     */
+    @Override
+    public int hashCode() {
+        return Objects.hash(unscaledValue, scale);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (!(obj instanceof MyBigDecimal)) return false;
+        MyBigDecimal other = (MyBigDecimal) obj;
+        return this.scale == other.scale && this.unscaledValue.equals(other.unscaledValue);
+    }
+
     @Override
     public String toString() {
-        if (scale == 0) {
-            return unscaledValue.toString();
+        int length = Math.max(unscaledValue.digits().length, scale + 1) + 2;
+        return appendTo(new StringBuilder(length)).toString();
+    }
+
+    /**
+     * Read-only {@link CharSequence} view of ASCII bytes, so byte fields are parsed without decoding them first.
+     */
+    private static final class AsciiSequence implements CharSequence {
+        private final byte[] bytes;
+        private final int offset;
+
+        private AsciiSequence(byte[] bytes, int offset) {
+            this.bytes = bytes;
+            this.offset = offset;
         }
-        String s = unscaledValue.abs().toString(); // get unscaled value without signum
-        StringBuilder builder = new StringBuilder(s);
-        while (builder.length() <= scale) { // if number is between 0 and 1. ex: 0.12345 -> s=12345 length=5 scale=5
-            builder.insert(0, '0');
+
+        @Override
+        public int length() {
+            return bytes.length - offset;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return (char) (bytes[offset + index] & 0xFF);
         }
-        builder.insert(builder.length() - scale, '.');
-        if (unscaledValue.isNegative()) {
-            builder.insert(0, '-');
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return new String(bytes, offset + start, end - start, StandardCharsets.ISO_8859_1);
         }
-        return builder.toString();
     }
 }
@@ -0,0 +1,191 @@
+package it.ngoton;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Collector;
+
+/**
+ * Exact sum of many {@link MyBigDecimal} values.
+ * <p>{@link MyBigDecimal#add} brings both operands to the same scale and allocates new digit arrays on every call.
+ * The accumulator instead keeps one mutable partial sum per scale and only rescales and merges them once,
+ * when the {@link #sum()} is requested.
+ * <p>Each partial sum is a <b>carry-save</b> digit array: the digits of every value are added slot by slot
+ * without propagating the carries. A slot grows by at most 9 per value, so carries only need to be propagated
+ * every {@link #CARRY_INTERVAL} values.
+ * <pre>
+ *   values   123, 989, 45  (scale 0)
+ *   slots    [3+9+5, 2+8+4, 1+9] = [17, 14, 10]      no carry yet
+ *   carry    [7, 5, 1, 1]                            = 1157
+ * </pre>
+ * <p>Not thread-safe: use one accumulator per thread and {@link #merge} them, as {@link #summing()} does for
+ * {@code parallelStream()}.
+ */
+public class MyBigDecimalAccumulator {
+    /**
+     * {@code Integer.MAX_VALUE / 9} additions of a digit always fit in a slot.
+     */
+    static final int CARRY_INTERVAL = Integer.MAX_VALUE / 9 - 1;
+
+    private final Map<Integer, Partial> partials = new HashMap<>();
+    /**
+     * Most inputs share the same scale, this skips the map lookup for them.
+     */
+    private Partial last;
+    private long count;
+
+    public void accept(MyBigDecimal value) {
+        Partial partial = last;
+        if (partial == null || partial.scale != value.scale()) {
+            partial = partials.computeIfAbsent(value.scale(), Partial::new);
+            last = partial;
+        }
+        partial.add(value.unscaledValue());
+        count++;
+    }
+
+    /**
+     * Adds all the values of {@code other} into this accumulator.
+     * @return this accumulator
+     */
+    public MyBigDecimalAccumulator merge(MyBigDecimalAccumulator other) {
+        for (Partial partial : other.partials.values()) {
+            partials.computeIfAbsent(partial.scale, Partial::new).merge(partial);
+        }
+        count += other.count;
+        return this;
+    }
+
+    public long count() {
+        return count;
+    }
+
+    /**
+     * Rescales every partial sum to the largest scale seen and adds them.
+     * @return the exact sum, {@code 0} if no value was accepted
+     */
+    public MyBigDecimal sum() {
+        int maxScale = 0;
+        for (Partial partial : partials.values()) {
+            maxScale = Math.max(maxScale, partial.scale);
+        }
+        MyBigInteger sum = MyBigInteger.ZERO;
+        for (Partial partial : partials.values()) {
+            sum = sum.add(partial.value(maxScale - partial.scale));
+        }
+        return new MyBigDecimal(sum, maxScale);
+    }
+
+    /**
+     * @return {@code sum / count}, with the precision of {@link MyBigDecimal#divide}
+     */
+    public MyBigDecimal average() {
+        if (count == 0) throw new ArithmeticException("Average of no values");
+        return sum().divide(new MyBigDecimal(Long.toString(count)));
+    }
+
+    /**
+     * Collector summing a (parallel) stream: every thread fills its own accumulator, they are merged at the end.
+     */
+    public static Collector<MyBigDecimal, ?, MyBigDecimal> summing() {
+        return Collector.of(MyBigDecimalAccumulator::new, MyBigDecimalAccumulator::accept,
+                MyBigDecimalAccumulator::merge, MyBigDecimalAccumulator::sum, Collector.Characteristics.UNORDERED);
+    }
+
+    public static Collector<MyBigDecimal, ?, MyBigDecimal> averaging() {
+        return Collector.of(MyBigDecimalAccumulator::new, MyBigDecimalAccumulator::accept,
+                MyBigDecimalAccumulator::merge, MyBigDecimalAccumulator::average, Collector.Characteristics.UNORDERED);
+    }
+
+    /**
+     * Carry-save sums of the unscaled values sharing one scale.
+     * Positive and negative values are kept apart, so no borrow is ever needed while accumulating.
+     */
+    private static class Partial {
+        private final int scale;
+        private int[] positive = new int[0];
+        private int[] negative = new int[0];
+        /**
+         * Values added since the carries were last propagated.
+         */
+        private int pending;
+
+        private Partial(int scale) {
+            this.scale = scale;
+        }
+
+        private void add(MyBigInteger value) {
+            if (value.signum() == 0) return;
+            if (pending == CARRY_INTERVAL) {
+                propagate();
+            }
+            int[] digits = value.digits();
+            if (value.signum() > 0) {
+                positive = addTo(positive, digits);
+            }
+            else {
+                negative = addTo(negative, digits);
+            }
+            pending++;
+        }
+
+        private void merge(Partial other) {
+            propagate();
+            other.propagate();
+            positive = addTo(positive, other.positive);
+            negative = addTo(negative, other.negative);
+            pending = 1;
+        }
+
+        private static int[] addTo(int[] slots, int[] digits) {
+            if (slots.length < digits.length) {
+                slots = Arrays.copyOf(slots, digits.length + 1);
+            }
+            for (int i = 0; i < digits.length; i++) {
+                slots[i] += digits[i];
+            }
+            return slots;
+        }
+
+        private void propagate() {
+            positive = carry(positive);
+            negative = carry(negative);
+            pending = 0;
+        }
+
+        /**
+         * [17, 14, 10] -> [7, 5, 1, 1]
+         */
+        private static int[] carry(int[] slots) {
+            int carry = 0;
+            for (int i = 0; i < slots.length; i++) {
+                int sum = slots[i] + carry;
+                slots[i] = sum % 10;
+                carry = sum / 10;
+            }
+            while (carry > 0) {
+                slots = Arrays.copyOf(slots, slots.length + 1);
+                slots[slots.length - 1] = carry % 10;
+                carry /= 10;
+            }
+            return slots;
+        }
+
+        /**
+         * @param shift number of decimal places to move left, i.e. multiply by <code>10<sup>shift</sup></code>
+         * @return {@code (positive - negative) * 10^shift}
+         */
+        private MyBigInteger value(int shift) {
+            propagate();
+            MyBigInteger plus = new MyBigInteger(shifted(positive, shift), 1);
+            MyBigInteger minus = new MyBigInteger(shifted(negative, shift), 1);
+            return plus.subtract(minus);
+        }
+
+        private static int[] shifted(int[] digits, int shift) {
+            int[] result = new int[digits.length + shift];
+            System.arraycopy(digits, 0, result, shift, digits.length);
+            return result;
+        }
+    }
+}
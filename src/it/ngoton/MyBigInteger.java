@@ -1,5 +1,10 @@
 package it.ngoton;
 
+import it.ngoton.MyMetrics.Operation;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.WritableByteChannel;
 import java.util.Arrays;
 import java.util.Objects;
 
@@ -10,6 +15,7 @@ import java.util.Objects;
  * <p>{@code long} base <code>2<sup>64</sup></code>, stores numbers from <code>-2<sup>63</sup></code> to <code>2<sup>63</sup>-1</code>
  * */
 public class MyBigInteger extends Number implements Comparable<MyBigInteger> {
+    private static final long serialVersionUID = 1L;
     public static final MyBigInteger ZERO = new MyBigInteger(new int[]{0}, 0);
     public static final MyBigInteger ONE = new MyBigInteger(new int[]{1}, 1);
     /**
@@ -45,7 +51,11 @@ public class MyBigInteger extends Number implements Comparable<MyBigInteger> {
         this(Long.toString(value));
     }
 
-    private MyBigInteger(int[] digits, int signum) {
+    /**
+     * Builds a number from its digits (least significant first) for the classes of this package.
+     * The array is copied, so the caller may keep reusing it.
+     */
+    MyBigInteger(int[] digits, int signum) {
         init(digits, signum);
     }
 
@@ -79,33 +89,25 @@ public class MyBigInteger extends Number implements Comparable<MyBigInteger> {
     /**
      * Algebraic Operations (Các phép toán đại số)
      * <p>The basic operations covered in algebra are addition, subtraction, multiplication, and division.
+     * <p>The expression is compiled by {@link MyExpression}, so it may combine several operators, parentheses and
+     * functions: {@code "(2 + 3) * 4 ^ 2"}, {@code "gcd(48, 18) + factorial(5)"}.
+     * <p>Unlike {@link MyExpression#compile(String)}, a {@code '-'} written right before a number belongs to the
+     * number, so the {@code "x op y"} form keeps its results: {@code "-2 ^ 2"} is {@code (-2) ^ 2 = 4}
+     * ({@code "-(2 ^ 2)"} for {@code -4}).
+     * <p>Compiled expressions are kept in a cache, so a repeated formula is only parsed once.
      * @param expression
      * @return
      */
     public static MyBigInteger calculate(String expression) {
-        String[] xOperatorY = expression.split(" ");
-        char operator = xOperatorY[1].charAt(0);
-        MyBigInteger x = new MyBigInteger(xOperatorY[0]);
-        MyBigInteger y = new MyBigInteger(xOperatorY[2]);
-
-        switch(operator) {
-            case '*':
-                return x.multiply(y);
-            case '+':
-                return x.add(y);
-            case '-':
-                return x.subtract(y);
-            case '/':
-                return x.divide(y);
-            case '%':
-                return x.mod(y);
-            case '^':
-                return x.pow(y.intValue());
-            default : throw new IllegalArgumentException("Operation not supported!");
-        }
+        return MyExpressionCache.CALCULATE.calculate(expression);
     }
 
     public MyBigInteger add(MyBigInteger other) {
+        if (MyMetrics.ENABLED) return MyMetrics.measure(Operation.ADD, operandDigits(other), () -> sum(other));
+        return sum(other);
+    }
+
+    private MyBigInteger sum(MyBigInteger other) {
         if (this.signum == 0) return other;
         if (other.signum == 0) return this;
         if (this.signum != other.signum) {
@@ -117,6 +119,11 @@ public class MyBigInteger extends Number implements Comparable<MyBigInteger> {
     }
 
     public MyBigInteger subtract(MyBigInteger other) {
+        if (MyMetrics.ENABLED) return MyMetrics.measure(Operation.SUBTRACT, operandDigits(other), () -> difference(other));
+        return difference(other);
+    }
+
+    private MyBigInteger difference(MyBigInteger other) {
         if (this.signum == 0) return other.negate();
         if (other.signum == 0) return this;
         if (this.signum != other.signum) // Positive - negative || Negative - positive
@@ -132,11 +139,21 @@ public class MyBigInteger extends Number implements Comparable<MyBigInteger> {
     }
 
     public MyBigInteger multiply(MyBigInteger other) {
+        if (MyMetrics.ENABLED) return MyMetrics.measure(Operation.MULTIPLY, operandDigits(other), () -> product(other));
+        return product(other);
+    }
+
+    private MyBigInteger product(MyBigInteger other) {
         if (this.signum == 0 || other.signum == 0) return ZERO;
         return new MyBigInteger(times(this.digits, other.digits), this.signum * other.signum);
     }
 
     public MyBigInteger divide(MyBigInteger other) {
+        if (MyMetrics.ENABLED) return MyMetrics.measure(Operation.DIVIDE, operandDigits(other), () -> quotient(other));
+        return quotient(other);
+    }
+
+    private MyBigInteger quotient(MyBigInteger other) {
         if (this.signum == 0) return ZERO; // Quotient is 0 if dividend = 0
         if (other.signum == 0) throw new ArithmeticException("BigInteger divide by zero");
 
@@ -150,6 +167,11 @@ public class MyBigInteger extends Number implements Comparable<MyBigInteger> {
     }
 
     public MyBigInteger mod(MyBigInteger other) {
+        if (MyMetrics.ENABLED) return MyMetrics.measure(Operation.MOD, operandDigits(other), () -> remainder(other));
+        return remainder(other);
+    }
+
+    private MyBigInteger remainder(MyBigInteger other) {
         MyBigInteger quotient = this.divide(other);
         MyBigInteger remainder = this.subtract(quotient.multiply(other));
         return remainder;
@@ -164,6 +186,11 @@ public class MyBigInteger extends Number implements Comparable<MyBigInteger> {
      * @return <code>x<sup>n</sup></code>
      */
     public MyBigInteger pow(int exponent) {
+        if (MyMetrics.ENABLED) return MyMetrics.measure(Operation.POW, digits.length, () -> power(exponent));
+        return power(exponent);
+    }
+
+    private MyBigInteger power(int exponent) {
         if (exponent == 0) return ONE;
 
         MyBigInteger result = ONE;
@@ -176,6 +203,7 @@ public class MyBigInteger extends Number implements Comparable<MyBigInteger> {
         }
 
         while (exponent > 0) {
+            MyCancellation.check();
             result = result.multiply(base);
             exponent--;
         }
@@ -191,9 +219,15 @@ public class MyBigInteger extends Number implements Comparable<MyBigInteger> {
      * @return {@code n!}
      */
     public static MyBigInteger factorial(int n) {
+        if (MyMetrics.ENABLED) return MyMetrics.measure(Operation.FACTORIAL, n, () -> factorialOf(n));
+        return factorialOf(n);
+    }
+
+    private static MyBigInteger factorialOf(int n) {
         if (n < 0) throw new IllegalArgumentException("Negative factorial not supported");
         MyBigInteger result = ONE;
         for (int i = 2; i <= n; i++) {
+            MyCancellation.check();
             result = result.multiply(new MyBigInteger(i));
         }
         return result;
@@ -204,11 +238,17 @@ public class MyBigInteger extends Number implements Comparable<MyBigInteger> {
      * @return √n
      */
     public MyBigInteger sqrt() {
+        if (MyMetrics.ENABLED) return MyMetrics.measure(Operation.SQRT, digits.length, () -> squareRoot());
+        return squareRoot();
+    }
+
+    private MyBigInteger squareRoot() {
         MyBigInteger result = ONE;
         MyBigInteger low = ONE, high = this;
 
         while (low.compareTo(high) <= 0) {
-            MyBigInteger middle = low.add(high.subtract(low)).divide(new MyBigInteger(2));
+            MyCancellation.check();
+            MyBigInteger middle = low.add(high.subtract(low).divide(new MyBigInteger(2)));
 
             // if square of mid is less than or equal to n
             // update the result and search in upper half
@@ -227,6 +267,36 @@ public class MyBigInteger extends Number implements Comparable<MyBigInteger> {
         return result;
     }
 
+    /**
+     * The greatest common divisor (ước chung lớn nhất) with the Euclidean algorithm:
+     * <p>{@code gcd(a, b) = gcd(b, a mod b)}, {@code gcd(a, 0) = a}
+     * <p>{@code gcd(48, 18) = gcd(18, 12) = gcd(12, 6) = gcd(6, 0) = 6}
+     * @param other
+     * @return the largest positive number dividing both, {@code 0} if both are {@code 0}
+     */
+    public MyBigInteger gcd(MyBigInteger other) {
+        if (MyMetrics.ENABLED) return MyMetrics.measure(Operation.GCD, operandDigits(other), () -> greatestCommonDivisor(other));
+        return greatestCommonDivisor(other);
+    }
+
+    private MyBigInteger greatestCommonDivisor(MyBigInteger other) {
+        MyBigInteger a = this.abs();
+        MyBigInteger b = other.abs();
+        while (b.signum != 0) {
+            MyBigInteger remainder = a.mod(b);
+            a = b;
+            b = remainder;
+        }
+        return a;
+    }
+
+    /**
+     * Size of the largest operand, as reported to {@link MyMetrics}.
+     */
+    int operandDigits(MyBigInteger other) {
+        return Math.max(this.digits.length, other.digits.length);
+    }
+
     /**
      * Method returns a MyBigInteger whose value is the absolute value of the MyBigInteger with which it is used.
      * @return {@code digits} itself and {@code signum = 1 positive}
@@ -341,6 +411,16 @@ public class MyBigInteger extends Number implements Comparable<MyBigInteger> {
         return result;
     }
 
+    /**
+     * Multiplies with {@link #karatsuba} once both operands have {@link MyTuning#karatsubaThreshold()} digits,
+     * with {@link #schoolbook} below. The threshold is 64 digits unless tuned for the host, see {@link MyTuning}.
+     */
+    private int[] times(int[] a, int[] b) {
+        int threshold = MyTuning.karatsubaThreshold;
+        if (Math.min(a.length, b.length) >= threshold) return karatsuba(a, b, threshold);
+        return schoolbook(a, b);
+    }
+
     /**
      *       123
      *    *   45
@@ -392,10 +472,11 @@ public class MyBigInteger extends Number implements Comparable<MyBigInteger> {
      * @param b
      * @return {@code int[]} a*b
      */
-    private int[] times(int[] a, int[] b) {
+    static int[] schoolbook(int[] a, int[] b) {
         int[] result = new int[a.length + b.length];
 
         for (int i = 0; i < a.length; i++) {
+            MyCancellation.check();
             int carry = 0;
             for (int j = 0; j < b.length; j++) {
                 int product = result[i + j] + a[i] * b[j] + carry;
@@ -409,6 +490,120 @@ public class MyBigInteger extends Number implements Comparable<MyBigInteger> {
         return result;
     }
 
+    /**
+     * Karatsuba multiplication: three multiplications of half the size instead of four.
+     * <pre>
+     *   a = a1 * 10^m + a0          1234 = 12 * 10^2 + 34
+     *   b = b1 * 10^m + b0          5678 = 56 * 10^2 + 78
+     *   z2 = a1 * b1                  672
+     *   z0 = a0 * b0                 2652
+     *   z1 = (a1 + a0) * (b1 + b0) - z2 - z0 = a1 * b0 + a0 * b1
+     *                                46 * 134 - 672 - 2652 = 2840
+     *   a * b = z2 * 10^2m + z1 * 10^m + z0
+     *                                6720000 + 284000 + 2652 = 7006652
+     * </pre>
+     * The schoolbook method needs {@code n^2} digit products, Karatsuba about <code>n<sup>1.585</sup></code>,
+     * but its additions make it slower for short numbers: halves shorter than {@code threshold} use {@link #schoolbook}.
+     * <p>{@code m} is half the shorter operand, so both have a high half. When one operand is at least twice as long
+     * as the other, it is cut into blocks of the shorter length first, each multiplied as a balanced pair:
+     * <pre>
+     *   a = 123456789, b = 12    a = 1 * 10^8 + 23 * 10^6 + 45 * 10^4 + 67 * 10^2 + 89
+     *                            a * b = 1*12 * 10^8 + 23*12 * 10^6 + ... + 89*12
+     * </pre>
+     * @param threshold at least 4, so the halves (plus a carry digit) are always shorter than the operands
+     */
+    static int[] karatsuba(int[] a, int[] b, int threshold) {
+        MyCancellation.check();
+        if (a.length < b.length) return karatsuba(b, a, threshold);
+        if (a.length >= 2 * b.length) return unbalanced(a, b, threshold);
+        int m = b.length / 2;
+        int[] a0 = part(a, 0, m), a1 = part(a, m, a.length);
+        int[] b0 = part(b, 0, m), b1 = part(b, m, b.length);
+        int[] z2 = multiplyParts(a1, b1, threshold);
+        int[] z0 = multiplyParts(a0, b0, threshold);
+        int[] z1 = multiplyParts(sumParts(a1, a0), sumParts(b1, b0), threshold);
+        subtractInPlace(z1, z2);
+        subtractInPlace(z1, z0);
+
+        int[] result = new int[a.length + b.length];
+        addInPlace(result, z0, 0);
+        addInPlace(result, z1, m);
+        addInPlace(result, z2, 2 * m);
+        return result;
+    }
+
+    /**
+     * {@code a * b} with {@code a} at least twice as long as {@code b}, block by block of {@code b.length} digits.
+     */
+    private static int[] unbalanced(int[] a, int[] b, int threshold) {
+        int[] result = new int[a.length + b.length];
+        for (int from = 0; from < a.length; from += b.length) {
+            int[] block = part(a, from, Math.min(from + b.length, a.length));
+            addInPlace(result, multiplyParts(block, b, threshold), from);
+        }
+        return result;
+    }
+
+    private static int[] multiplyParts(int[] a, int[] b, int threshold) {
+        if (Math.min(a.length, b.length) >= threshold) return karatsuba(a, b, threshold);
+        return schoolbook(a, b);
+    }
+
+    /**
+     * Digits {@code [from, to)} of {@code digits} without the leading zeros, empty when they are all zero.
+     */
+    private static int[] part(int[] digits, int from, int to) {
+        to = Math.min(to, significantLength(digits));
+        return from >= to ? new int[0] : Arrays.copyOfRange(digits, from, to);
+    }
+
+    private static int[] sumParts(int[] a, int[] b) {
+        int[] sum = Arrays.copyOf(a.length >= b.length ? a : b, Math.max(a.length, b.length) + 1);
+        addInPlace(sum, a.length >= b.length ? b : a, 0);
+        return Arrays.copyOf(sum, significantLength(sum));
+    }
+
+    /**
+     * {@code target += digits * 10^offset}, the result must fit in {@code target}.
+     */
+    private static void addInPlace(int[] target, int[] digits, int offset) {
+        int length = significantLength(digits);
+        int carry = 0;
+        int i = offset;
+        for (int k = 0; k < length; k++, i++) {
+            int sum = target[i] + digits[k] + carry;
+            target[i] = sum % 10;
+            carry = sum / 10;
+        }
+        for (; carry > 0; i++) {
+            int sum = target[i] + carry;
+            target[i] = sum % 10;
+            carry = sum / 10;
+        }
+    }
+
+    /**
+     * {@code target -= digits}, with {@code target >= digits}.
+     */
+    private static void subtractInPlace(int[] target, int[] digits) {
+        int length = significantLength(digits);
+        int borrow = 0;
+        int i = 0;
+        for (; i < length || borrow > 0; i++) {
+            int diff = target[i] - borrow - (i < length ? digits[i] : 0);
+            borrow = diff < 0 ? 1 : 0;
+            target[i] = diff + 10 * borrow;
+        }
+    }
+
+    private static int significantLength(int[] digits) {
+        int length = digits.length;
+        while (length > 0 && digits[length - 1] == 0) {
+            length--;
+        }
+        return length;
+    }
+
     /**
      *  1234 : 45 = 27       1 / 45 =  0
      * -0┊┊┊                 0 * 45 =  0
@@ -485,6 +680,7 @@ public class MyBigInteger extends Number implements Comparable<MyBigInteger> {
         int[] quotient = {};
         int[] remainder = {};
         for (int i = a.length - 1; i >= 0; i--) {            //             [....]
+            MyCancellation.check();
             remainder = addSize(remainder, 1);     // Shift left [0,....]
             remainder = plus(remainder, new int[] {a[i]}); // Append to   [*,....]
             remainder = removeLeadingZeros(remainder);
@@ -548,20 +744,111 @@ public class MyBigInteger extends Number implements Comparable<MyBigInteger> {
         return 0;
     }
 
+    /**
+     * Direct access to the digits (least significant first) for the classes of this package. Must not be modified.
+     */
+    int[] digits() {
+        return digits;
+    }
+
+    public int signum() {
+        return signum;
+    }
+
     public boolean isNegative() {
         return this.signum == -1;
     }
 
-    @Override
-    public String toString() {
-        StringBuilder builder = new StringBuilder();
-        if (this.signum == -1) {
-            builder.append("-");
+    /**
+     * The digits in reverse order with the same sign, read straight from {@code digits} without going through a String.
+     * Leading zeros of the result are dropped: {@code 1200 -> 21}.
+     * <p>With {@link #add} it is one step of reverse-and-add: {@code n.add(n.reverseDigits())}.
+     */
+    public MyBigInteger reverseDigits() {
+        int[] reversed = new int[digits.length];
+        for (int i = 0, j = digits.length - 1; i < digits.length; i++, j--) {
+            reversed[i] = digits[j];
         }
-        for (int i = this.digits.length - 1; i >= 0; i--) {
-            builder.append(this.digits[i]);
+        return new MyBigInteger(reversed, signum);
+    }
+
+    /**
+     * Whether the digits read the same in both directions: {@code 12321}. A negative number is not a palindrome
+     * ({@code -121} reads {@code 121-}).
+     */
+    public boolean isPalindrome() {
+        if (signum < 0) return false;
+        for (int i = 0, j = digits.length - 1; i < j; i++, j--) {
+            if (digits[i] != digits[j]) return false;
         }
-        return builder.toString();
+        return true;
+    }
+
+    /**
+     * The sum of the digits, without the sign: {@code -123 -> 6}.
+     */
+    public long digitSum() {
+        long sum = 0;
+        for (int digit : digits) {
+            sum += digit;
+        }
+        return sum;
+    }
+
+    /**
+     * The number of decimal digits, without the sign: {@code 0 -> 1}, {@code -123 -> 3}.
+     */
+    public int digitCount() {
+        return digits.length;
+    }
+
+    /**
+     * Writes the decimal representation ({@code -123}) to {@code out}, without building an intermediate String.
+     * @return {@code out}
+     */
+    public StringBuilder appendTo(StringBuilder out) {
+        try {
+            text().appendTo(out);
+        }
+        catch (IOException e) {
+            throw new AssertionError(e); // StringBuilder does not throw
+        }
+        return out;
+    }
+
+    /**
+     * Writes the decimal representation to {@code out} in chunks of {@value DecimalText#CHUNK} characters: with a
+     * {@link java.io.Writer} or a stream the memory used is fixed, whatever the number of digits.
+     * @return {@code out}
+     * @see #appendTo(StringBuilder)
+     */
+    public <A extends Appendable> A appendTo(A out) throws IOException {
+        text().appendTo(out);
+        return out;
+    }
+
+    /**
+     * Writes the decimal representation to {@code out} as ASCII bytes, one byte per character.
+     * <p>Named apart from {@link #appendTo(Appendable)} because a {@link java.io.PrintStream} is both.
+     */
+    public void writeAsciiTo(OutputStream out) throws IOException {
+        text().writeAsciiTo(out);
+    }
+
+    /**
+     * @see #writeAsciiTo(OutputStream)
+     */
+    public void writeAsciiTo(WritableByteChannel out) throws IOException {
+        text().writeAsciiTo(out);
+    }
+
+    private DecimalText text() {
+        return new DecimalText(digits, isNegative(), 0);
+    }
+
+    @Override
+    public String toString() {
+        return appendTo(new StringBuilder(digits.length + 1)).toString();
     }
 
     @Override
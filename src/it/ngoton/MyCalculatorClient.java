@@ -0,0 +1,141 @@
+package it.ngoton;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Load generator for {@link MyCalculatorServer} on the loopback interface.
+ * <p>Every connection has a writer sending random {@code "x op y"} requests and a reader collecting the responses.
+ * At most {@code pipelineDepth} requests are waiting for their response at any time, the latency of a request is
+ * measured from its send to its response.
+ */
+public class MyCalculatorClient {
+    private static final String[] OPERATORS = {"+", "-", "*", "/", "%"};
+
+    /**
+     * Usage: {@code MyCalculatorClient [port] [connections] [requestsPerConnection] [pipelineDepth]}
+     */
+    public static void main(String[] args) throws Exception {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 7878;
+        int connections = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        int requests = args.length > 2 ? Integer.parseInt(args[2]) : 100_000;
+        int depth = args.length > 3 ? Integer.parseInt(args[3]) : 64;
+        System.out.println(run(port, connections, requests, depth));
+    }
+
+    public static Report run(int port, int connections, int requestsPerConnection, int pipelineDepth) throws Exception {
+        ExecutorService executor = MyCalculatorServer.connectionExecutor();
+        long start = System.nanoTime();
+        List<Future<long[]>> results = new ArrayList<>();
+        try {
+            for (int c = 0; c < connections; c++) {
+                long seed = c;
+                results.add(executor.submit(() -> connection(port, requestsPerConnection, pipelineDepth, seed)));
+            }
+            Report report = new Report();
+            long[] latencies = new long[0];
+            for (Future<long[]> result : results) {
+                long[] connection = result.get();
+                report.errors += connection[0];
+                int offset = latencies.length;
+                latencies = Arrays.copyOf(latencies, offset + connection.length - 1);
+                System.arraycopy(connection, 1, latencies, offset, connection.length - 1);
+            }
+            report.elapsedNanos = System.nanoTime() - start;
+            Arrays.sort(latencies);
+            report.requests = latencies.length;
+            report.p50Nanos = percentile(latencies, 0.50);
+            report.p99Nanos = percentile(latencies, 0.99);
+            report.maxNanos = latencies.length == 0 ? 0 : latencies[latencies.length - 1];
+            return report;
+        }
+        catch (ExecutionException e) {
+            throw new IOException("Connection failed", e.getCause());
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * @return {@code [errors, latency1, latency2, ...]}
+     */
+    private static long[] connection(int port, int requests, int depth, long seed) throws Exception {
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+            socket.setTcpNoDelay(true);
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            Writer out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+            // send times of the requests waiting for a response; a full queue blocks the writer
+            BlockingQueue<Long> inFlight = new ArrayBlockingQueue<>(depth);
+            Thread writer = new Thread(() -> {
+                Random random = new Random(seed);
+                try {
+                    for (int i = 0; i < requests; i++) {
+                        String request = random.nextInt(1_000_000) + " " + OPERATORS[random.nextInt(OPERATORS.length)]
+                                + " " + (random.nextInt(999) + 1);
+                        inFlight.put(System.nanoTime());
+                        out.write(request);
+                        out.write('\n');
+                        if (inFlight.remainingCapacity() == 0 || i == requests - 1) {
+                            out.flush();
+                        }
+                    }
+                }
+                catch (IOException | InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            writer.start();
+
+            long[] result = new long[requests + 1];
+            for (int i = 0; i < requests; i++) {
+                String response = in.readLine();
+                if (response == null) throw new IOException("Server closed the connection");
+                result[i + 1] = System.nanoTime() - inFlight.take();
+                if (!response.startsWith("OK ")) result[0]++;
+            }
+            writer.join();
+            return result;
+        }
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) return 0;
+        return sorted[Math.min(sorted.length - 1, (int) (sorted.length * percentile))];
+    }
+
+    public static class Report {
+        private long requests;
+        private long errors;
+        private long elapsedNanos;
+        private long p50Nanos;
+        private long p99Nanos;
+        private long maxNanos;
+
+        public double requestsPerSecond() {
+            return requests * 1e9 / Math.max(elapsedNanos, 1);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d requests, %d errors in %.3f s: %.0f req/s, latency p50 %.1f us, p99 %.1f us, max %.1f us",
+                    requests, errors, elapsedNanos / 1e9, requestsPerSecond(), p50Nanos / 1e3, p99Nanos / 1e3, maxNanos / 1e3);
+        }
+    }
+}
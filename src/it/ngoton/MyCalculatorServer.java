@@ -0,0 +1,215 @@
+package it.ngoton;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * A calculator service on localhost, so several processes can share one {@link MyExpressionCache}.
+ * <p>Line protocol over TCP, UTF-8:
+ * <pre>
+ *   request                 response
+ *   2 ^ 100 + 1             OK 1267650600228229401496703205377
+ *   d: 1.5 * sqrt(2)        OK 2.12132034345          ("d:" evaluates with MyBigDecimal)
+ *   1 / 0                   ERR java.lang.ArithmeticException: BigInteger divide by zero
+ *   factorial(10000000)     ERR timeout
+ * </pre>
+ * Requests may be <b>pipelined</b>: a client can send a whole batch of lines without waiting, the responses
+ * come back in the same order and are flushed once no more request is buffered.
+ * <p>Every connection is served by its own thread (a virtual thread when the JDK has them, Java 21+).
+ * Evaluations run on a pool of {@code maxConcurrent} threads:
+ * <ul>
+ *     <li>Backpressure: a connection waits for a free evaluation slot before reading its next request, so a client
+ *     sending faster than the server computes is slowed down by TCP flow control.
+ *     <li>Timeout: an evaluation running longer than {@code timeoutMillis} is cancelled, which stops the loops
+ *     of {@code multiply}, {@code pow}, {@code factorial}, {@code sqrt} and {@code divide} (see {@link MyCancellation}).
+ *     Its slot is free again once it has actually stopped.
+ * </ul>
+ * {@link #close()} stops accepting, closes the open connections and cancels the running evaluations.
+ */
+public class MyCalculatorServer implements Closeable {
+    private static final String DECIMAL_PREFIX = "d:";
+
+    private final int requestedPort;
+    private final long timeoutMillis;
+    private final MyExpressionCache cache;
+    private final Semaphore slots;
+    private final ExecutorService evaluators;
+    private final ExecutorService connections = connectionExecutor();
+    private final Set<Socket> clients = ConcurrentHashMap.newKeySet();
+    private ServerSocket serverSocket;
+    private Thread acceptor;
+
+    /**
+     * @param port {@code 0} picks a free port, see {@link #port()}
+     */
+    public MyCalculatorServer(int port, int maxConcurrent, long timeoutMillis, MyExpressionCache cache) {
+        if (maxConcurrent < 1 || timeoutMillis < 1) throw new IllegalArgumentException("Limits must be positive");
+        this.requestedPort = port;
+        this.timeoutMillis = timeoutMillis;
+        this.cache = cache;
+        this.slots = new Semaphore(maxConcurrent);
+        this.evaluators = Executors.newFixedThreadPool(maxConcurrent);
+    }
+
+    /**
+     * Usage: {@code MyCalculatorServer [port] [maxConcurrent] [timeoutMillis]}
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 7878;
+        int maxConcurrent = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        long timeout = args.length > 2 ? Long.parseLong(args[2]) : 5000;
+        MyCalculatorServer server = new MyCalculatorServer(port, maxConcurrent, timeout, MyExpressionCache.DEFAULT);
+        server.start();
+        System.out.println("Listening on localhost:" + server.port());
+    }
+
+    /**
+     * Binds to the loopback address and starts accepting connections in the background.
+     */
+    public void start() throws IOException {
+        serverSocket = new ServerSocket(requestedPort, 128, InetAddress.getLoopbackAddress());
+        acceptor = new Thread(this::acceptLoop, "calculator-acceptor");
+        acceptor.start();
+    }
+
+    public int port() {
+        return serverSocket.getLocalPort();
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        for (Socket client : clients) {
+            client.close(); // unblocks its connection thread, which is waiting in readLine
+        }
+        connections.shutdownNow();
+        evaluators.shutdownNow();
+    }
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                clients.add(socket);
+                if (serverSocket.isClosed()) { // closed while accepting, close() may have missed this socket
+                    clients.remove(socket);
+                    socket.close();
+                    return;
+                }
+                socket.setTcpNoDelay(true);
+                connections.execute(() -> serve(socket));
+            }
+            catch (SocketException e) {
+                return; // closed
+            }
+            catch (IOException e) {
+                System.err.println("Accept failed: " + e);
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             Writer out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                out.write(respond(line));
+                out.write('\n');
+                if (!in.ready()) { // end of the pipelined batch
+                    out.flush();
+                }
+            }
+        }
+        catch (IOException e) {
+            // client went away
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt(); // shutting down
+        }
+        finally {
+            clients.remove(socket);
+        }
+    }
+
+    private String respond(String line) throws InterruptedException {
+        boolean decimal = line.startsWith(DECIMAL_PREFIX);
+        String expression = decimal ? line.substring(DECIMAL_PREFIX.length()) : line;
+        slots.acquire();
+        Evaluation result = new Evaluation(() -> decimal
+                ? cache.calculateDecimal(expression).toString()
+                : cache.calculate(expression).toString());
+        try {
+            evaluators.execute(result);
+        }
+        catch (RuntimeException e) {
+            slots.release();
+            throw e;
+        }
+        try {
+            return "OK " + result.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        }
+        catch (TimeoutException | CancellationException e) {
+            result.cancel(true);
+            return "ERR timeout";
+        }
+        catch (ExecutionException e) {
+            return "ERR " + e.getCause();
+        }
+    }
+
+    /**
+     * Runs the evaluation in a {@link MyCancellation} scope, so {@link #cancel} stops its loops.
+     * <p>Gives its slot back when the evaluator thread is done with it, not when the connection stops waiting:
+     * after a timeout the cancelled evaluation still runs until its next {@link MyCancellation#check()},
+     * and a new one must not start on top of it. A task cancelled before it started still runs this, and returns at once.
+     */
+    private class Evaluation extends FutureTask<String> {
+        Evaluation(Callable<String> evaluation) {
+            super(evaluation);
+        }
+
+        @Override
+        public void run() {
+            try {
+                MyCancellation.run(this::isCancelled, super::run);
+            }
+            finally {
+                slots.release();
+            }
+        }
+    }
+
+    /**
+     * One virtual thread per task on Java 21+, a cached pool of platform threads before.
+     */
+    static ExecutorService connectionExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        }
+        catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool();
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package it.ngoton;
+
+import java.util.concurrent.CancellationException;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Cooperative cancellation of the long loops of {@link MyBigInteger} ({@code pow}, {@code factorial}, {@code sqrt},
+ * {@code divide}, {@code multiply}), for the code that asks for it only.
+ * <pre>
+ *   MyCancellation.run(task::isCancelled, () -> ...);   // the loops run below check task.isCancelled()
+ * </pre>
+ * Outside of {@link #run} the checks do nothing: an interrupted thread calling the library still gets its result,
+ * and its interrupt status is left for the caller to handle.
+ */
+final class MyCancellation {
+    private static final ThreadLocal<BooleanSupplier> CURRENT = new ThreadLocal<>();
+
+    private MyCancellation() {
+    }
+
+    /**
+     * Runs {@code body} on this thread, the loops it runs stop with a {@link CancellationException} once
+     * {@code cancelled} returns {@code true}.
+     */
+    static void run(BooleanSupplier cancelled, Runnable body) {
+        BooleanSupplier outer = CURRENT.get();
+        CURRENT.set(cancelled);
+        try {
+            body.run();
+        }
+        finally {
+            if (outer == null) {
+                CURRENT.remove();
+            }
+            else {
+                CURRENT.set(outer);
+            }
+        }
+    }
+
+    /**
+     * @throws CancellationException if the current {@link #run} was cancelled
+     */
+    static void check() {
+        BooleanSupplier cancelled = CURRENT.get();
+        if (cancelled != null && cancelled.getAsBoolean()) {
+            throw new CancellationException("Computation cancelled");
+        }
+    }
+}
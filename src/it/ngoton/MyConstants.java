@@ -0,0 +1,463 @@
+package it.ngoton;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * High-precision mathematical constants computed with {@link MyBigInteger}, for learning purposes.
+ * <p>Both series are evaluated with <b>binary splitting</b>: instead of adding the terms one by one
+ * (every term would be a division of two huge numbers), the range of terms {@code [a, b)} is split in half
+ * recursively and the partial sums are combined as fractions {@code P/Q}. Only one big division is needed at the end.
+ * The two halves are independent, so large ranges are evaluated in parallel on the common {@link ForkJoinPool}
+ * (from {@link MyTuning#parallelThreshold()} terms).
+ * <p>Results are truncated (not rounded) to the requested number of fraction digits, and can be cached on disk
+ * in a packed binary format so that later runs only read the digits back.
+ */
+public class MyConstants {
+    /**
+     * Extra digits computed on top of the requested precision. The computed value is off by a few units of its last
+     * digit, far less than <code>10<sup>GUARD_DIGITS / 2</sup></code>, so truncating the guard digits gives the exact
+     * digits unless the first half of them is all 0 or all 9: the value may then sit on the other side of a digit
+     * boundary, and {@link #compute} starts again with twice as many guard digits.
+     */
+    private static final int GUARD_DIGITS = 10;
+    /**
+     * "MYC1" - first bytes of every cache file.
+     */
+    private static final int CACHE_MAGIC = 0x4D594331;
+    private static final int WRITE_CHUNK = 8192;
+
+    /**
+     * Chudnovsky constants: <code>C<sup>3</sup>/24</code> with {@code C = 640320}.
+     */
+    private static final MyBigInteger C3_OVER_24 = new MyBigInteger(10939058860032000L);
+    private static final MyBigInteger A = new MyBigInteger(13591409);
+    private static final MyBigInteger B = new MyBigInteger(545140134);
+
+    private static volatile Path cacheDirectory;
+
+    private MyConstants() {
+    }
+
+    /**
+     * Enables the disk cache. Every constant is stored as {@code <directory>/<name>.bin}.
+     * @param directory where the cache files live, {@code null} disables the cache
+     */
+    public static void setCacheDirectory(Path directory) {
+        cacheDirectory = directory;
+    }
+
+    /**
+     * π truncated to {@code digits} fraction digits, using the Chudnovsky series:
+     * <p><code>1/π = 12 Σ (-1)<sup>k</sup> (6k)! (13591409 + 545140134k) / ((3k)! (k!)<sup>3</sup> 640320<sup>3k+3/2</sup>)</code>
+     * <p>Every term adds about 14.18 digits.
+     * @param digits number of digits after the decimal point
+     * @return π
+     */
+    public static MyBigDecimal pi(int digits) {
+        return constant("pi", digits);
+    }
+
+    /**
+     * Euler's number truncated to {@code digits} fraction digits, using the factorial series:
+     * <p><code>e = Σ 1/k! = 1 + 1/1! + 1/2! + 1/3! + ...</code>
+     * @param digits number of digits after the decimal point
+     * @return e
+     */
+    public static MyBigDecimal e(int digits) {
+        return constant("e", digits);
+    }
+
+    /**
+     * √2 truncated to {@code digits} fraction digits, using Newton's method on integers.
+     * @param digits number of digits after the decimal point
+     * @return √2
+     */
+    public static MyBigDecimal sqrt2(int digits) {
+        return constant("sqrt2", digits);
+    }
+
+    /**
+     * Writes π as ASCII text ({@code "3.1415..."}) to {@code out}.
+     * <p>When the digits are already cached they are decoded from the cache file chunk by chunk,
+     * without building the whole number in memory.
+     */
+    public static void writePi(int digits, OutputStream out) throws IOException {
+        write("pi", digits, out);
+    }
+
+    public static void writeE(int digits, OutputStream out) throws IOException {
+        write("e", digits, out);
+    }
+
+    public static void writeSqrt2(int digits, OutputStream out) throws IOException {
+        write("sqrt2", digits, out);
+    }
+
+    private static MyBigDecimal constant(String name, int digits) {
+        if (digits < 0) throw new IllegalArgumentException("Negative number of digits not supported");
+        String cached = readCache(name, digits);
+        if (cached != null) {
+            return toDecimal(cached, digits);
+        }
+        String text = compute(name, digits);
+        writeCache(name, text, digits);
+        return toDecimal(text, digits);
+    }
+
+    private static void write(String name, int digits, OutputStream out) throws IOException {
+        if (digits < 0) throw new IllegalArgumentException("Negative number of digits not supported");
+        Path file = cacheFile(name);
+        if (file != null && streamCache(file, digits, out)) {
+            return;
+        }
+        String text = compute(name, digits);
+        writeCache(name, text, digits);
+        toDecimal(text, digits).writeAsciiTo(out);
+        out.flush();
+    }
+
+    /**
+     * @return all digits of {@code floor(constant * 10^digits)}, i.e. the integer part followed by the fraction digits.
+     */
+    private static String compute(String name, int digits) {
+        for (int guard = GUARD_DIGITS; ; guard *= 2) {
+            String s = scaled(name, digits + guard).toString();
+            if (!nearBoundary(s.substring(s.length() - guard))) {
+                return s.substring(0, s.length() - guard);
+            }
+        }
+    }
+
+    /**
+     * @return {@code constant * 10^precision}, off by a few units
+     */
+    private static MyBigInteger scaled(String name, int precision) {
+        MyBigInteger scaled;
+        switch (name) {
+            case "pi":
+                scaled = computePi(precision);
+                break;
+            case "e":
+                scaled = computeE(precision);
+                break;
+            case "sqrt2":
+                scaled = isqrt(new MyBigInteger("2" + zeros(2 * precision)));
+                break;
+            default: throw new IllegalArgumentException("Unknown constant " + name);
+        }
+        return scaled;
+    }
+
+    private static boolean nearBoundary(String guard) {
+        String half = guard.substring(0, guard.length() / 2);
+        return half.chars().allMatch(c -> c == '0') || half.chars().allMatch(c -> c == '9');
+    }
+
+    /**
+     * <code>π * 10<sup>n</sup> = 426880 * √(10005 * 10<sup>2n</sup>) * Q(0, N) / T(0, N)</code>
+     */
+    private static MyBigInteger computePi(int precision) {
+        int terms = (int) (precision / 14.181647462725477) + 2;
+        Chudnovsky split = ForkJoinPool.commonPool().invoke(new Chudnovsky(0, terms, MyTuning.parallelThreshold));
+        MyBigInteger sqrt = isqrt(new MyBigInteger("10005" + zeros(2 * precision)));
+        return new MyBigInteger(426880).multiply(sqrt).multiply(split.q).divide(split.t);
+    }
+
+    /**
+     * <code>e * 10<sup>n</sup> = (Q(0, N) + P(0, N)) * 10<sup>n</sup> / Q(0, N)</code>, with {@code N! > 10^n}.
+     */
+    private static MyBigInteger computeE(int precision) {
+        int terms = 1;
+        double log10Factorial = 0;
+        while (log10Factorial <= precision + 1) {
+            terms++;
+            log10Factorial += Math.log10(terms);
+        }
+        Factorial split = ForkJoinPool.commonPool().invoke(new Factorial(0, terms, MyTuning.parallelThreshold));
+        MyBigInteger numerator = new MyBigInteger(split.q.add(split.p) + zeros(precision));
+        return numerator.divide(split.q);
+    }
+
+    /**
+     * Only the binary splitting of {@link #computeE}, timed by {@link MyTuning} to choose the parallel threshold.
+     */
+    static MyBigInteger splitE(int terms, int parallelThreshold) {
+        return ForkJoinPool.commonPool().invoke(new Factorial(0, terms, parallelThreshold)).q;
+    }
+
+    /**
+     * Floor of the square root with Newton's method: <code>x<sub>k+1</sub> = (x<sub>k</sub> + n / x<sub>k</sub>) / 2</code>.
+     * <p>Starting above the root, the sequence decreases until it reaches {@code floor(√n)}.
+     */
+    static MyBigInteger isqrt(MyBigInteger n) {
+        if (n.compareTo(MyBigInteger.ONE) <= 0) return n;
+        int length = n.toString().length();
+        MyBigInteger two = new MyBigInteger(2);
+        MyBigInteger x = new MyBigInteger("1" + zeros((length + 1) / 2)); // 10^ceil(len/2) > √n
+        while (true) {
+            MyBigInteger y = x.add(n.divide(x)).divide(two);
+            if (y.compareTo(x) >= 0) {
+                return x;
+            }
+            x = y;
+        }
+    }
+
+    private static String zeros(int count) {
+        char[] zeros = new char[count];
+        Arrays.fill(zeros, '0');
+        return new String(zeros);
+    }
+
+    private static MyBigDecimal toDecimal(String text, int digits) {
+        return new MyBigDecimal(new MyBigInteger(text), digits);
+    }
+
+    /**
+     * Binary splitting of the Chudnovsky series on the range of terms {@code [a, b)}.
+     * <pre>
+     *  b - a = 1:   P(a, a+1) = (6a-5)(2a-1)(6a-1)          (P = 1 for a = 0)
+     *               Q(a, a+1) = a^3 * C^3 / 24               (Q = 1 for a = 0)
+     *               T(a, a+1) = (-1)^a * P(a, a+1) * (13591409 + 545140134a)
+     *  otherwise:   m = (a + b) / 2
+     *               P(a, b) = P(a, m) * P(m, b)
+     *               Q(a, b) = Q(a, m) * Q(m, b)
+     *               T(a, b) = Q(m, b) * T(a, m) + P(a, m) * T(m, b)
+     * </pre>
+     */
+    private static class Chudnovsky extends RecursiveTask<Chudnovsky> {
+        private static final long serialVersionUID = 1L;
+        private final int a;
+        private final int b;
+        private final int threshold;
+        private MyBigInteger p;
+        private MyBigInteger q;
+        private MyBigInteger t;
+
+        private Chudnovsky(int a, int b, int threshold) {
+            this.a = a;
+            this.b = b;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected Chudnovsky compute() {
+            if (b - a == 1) {
+                if (a == 0) {
+                    p = q = MyBigInteger.ONE;
+                }
+                else {
+                    long k = a;
+                    p = new MyBigInteger((6 * k - 5) * (2 * k - 1) * (6 * k - 1));
+                    q = new MyBigInteger(k * k).multiply(new MyBigInteger(k)).multiply(C3_OVER_24);
+                }
+                t = p.multiply(A.add(B.multiply(new MyBigInteger(a))));
+                if (a % 2 == 1) {
+                    t = t.negate();
+                }
+                return this;
+            }
+            int m = (a + b) >>> 1;
+            Chudnovsky left = new Chudnovsky(a, m, threshold);
+            Chudnovsky right = new Chudnovsky(m, b, threshold);
+            if (b - a > threshold) { // smaller ranges stay on the current thread
+                left.fork();
+                right.compute();
+                left.join();
+            }
+            else {
+                left.compute();
+                right.compute();
+            }
+            p = left.p.multiply(right.p);
+            q = left.q.multiply(right.q);
+            t = right.q.multiply(left.t).add(left.p.multiply(right.t));
+            return this;
+        }
+    }
+
+    /**
+     * Binary splitting of <code>Σ<sub>k=a+1..b</sub> 1 / ((a+1)(a+2)...k) = P(a, b) / Q(a, b)</code>.
+     * <pre>
+     *  b - a = 1:   P(a, a+1) = 1
+     *               Q(a, a+1) = a + 1
+     *  otherwise:   P(a, b) = P(a, m) * Q(m, b) + P(m, b)
+     *               Q(a, b) = Q(a, m) * Q(m, b)
+     * </pre>
+     * With {@code a = 0} this is {@code 1/1! + 1/2! + ... + 1/b!}.
+     */
+    private static class Factorial extends RecursiveTask<Factorial> {
+        private static final long serialVersionUID = 1L;
+        private final int a;
+        private final int b;
+        private final int threshold;
+        private MyBigInteger p;
+        private MyBigInteger q;
+
+        private Factorial(int a, int b, int threshold) {
+            this.a = a;
+            this.b = b;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected Factorial compute() {
+            if (b - a == 1) {
+                p = MyBigInteger.ONE;
+                q = new MyBigInteger(b);
+                return this;
+            }
+            int m = (a + b) >>> 1;
+            Factorial left = new Factorial(a, m, threshold);
+            Factorial right = new Factorial(m, b, threshold);
+            if (b - a > threshold) { // smaller ranges stay on the current thread
+                left.fork();
+                right.compute();
+                left.join();
+            }
+            else {
+                left.compute();
+                right.compute();
+            }
+            p = left.p.multiply(right.q).add(right.p);
+            q = left.q.multiply(right.q);
+            return this;
+        }
+    }
+
+    /*
+     * Cache file layout (big-endian):
+     *   int magic          "MYC1"
+     *   int scale          number of fraction digits stored
+     *   int length         number of digits stored (integer part + fraction)
+     *   byte[]             two decimal digits per byte (high nibble first), padded with 0xF
+     */
+
+    private static Path cacheFile(String name) {
+        Path directory = cacheDirectory;
+        return directory == null ? null : directory.resolve(name + ".bin");
+    }
+
+    private static String readCache(String name, int digits) {
+        Path file = cacheFile(name);
+        if (file == null) return null;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            int scale = readHeader(in);
+            int length = in.readInt();
+            if (scale < digits) return null;
+            int wanted = length - (scale - digits);
+            char[] text = new char[wanted];
+            for (int i = 0; i < wanted; i += 2) {
+                int packed = in.readUnsignedByte();
+                text[i] = (char) ('0' + (packed >>> 4));
+                if (i + 1 < wanted) text[i + 1] = (char) ('0' + (packed & 0xF));
+            }
+            return new String(text);
+        }
+        catch (NoSuchFileException e) {
+            return null;
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Streams the cached digits as ASCII without materializing them.
+     * @return {@code false} if the cache does not hold enough digits
+     */
+    private static boolean streamCache(Path file, int digits, OutputStream out) throws IOException {
+        InputStream raw;
+        try {
+            raw = Files.newInputStream(file);
+        }
+        catch (NoSuchFileException e) {
+            return false;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(raw))) {
+            int scale = readHeader(in);
+            int length = in.readInt();
+            if (scale < digits) return false;
+            int integerDigits = length - scale;
+            int wanted = integerDigits + digits;
+            byte[] buffer = new byte[WRITE_CHUNK];
+            int size = 0;
+            int packed = 0;
+            for (int i = 0; i < wanted; i++) {
+                if (size >= buffer.length - 1) { // room for a digit and the decimal point
+                    out.write(buffer, 0, size);
+                    size = 0;
+                }
+                if (i == integerDigits) {
+                    buffer[size++] = '.';
+                }
+                if (i % 2 == 0) {
+                    packed = in.readUnsignedByte();
+                    buffer[size++] = (byte) ('0' + (packed >>> 4));
+                }
+                else {
+                    buffer[size++] = (byte) ('0' + (packed & 0xF));
+                }
+            }
+            out.write(buffer, 0, size);
+            out.flush();
+            return true;
+        }
+    }
+
+    private static int readHeader(DataInputStream in) throws IOException {
+        if (in.readInt() != CACHE_MAGIC) {
+            throw new IOException("Not a constant cache file");
+        }
+        return in.readInt();
+    }
+
+    /**
+     * Replaces the cache file when {@code text} holds more digits than the cached value.
+     * The file is written next to the target and moved in place, so readers never see a partial file.
+     */
+    private static void writeCache(String name, String text, int scale) {
+        Path file = cacheFile(name);
+        if (file == null) return;
+        try {
+            if (Files.exists(file)) {
+                try (DataInputStream in = new DataInputStream(Files.newInputStream(file))) {
+                    if (readHeader(in) >= scale) return;
+                }
+                catch (IOException ignored) {
+                    // corrupted cache, overwrite it
+                }
+            }
+            Files.createDirectories(file.getParent());
+            Path temp = Files.createTempFile(file.getParent(), name, ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(CACHE_MAGIC);
+                out.writeInt(scale);
+                out.writeInt(text.length());
+                for (int i = 0; i < text.length(); i += 2) {
+                    int high = text.charAt(i) - '0';
+                    int low = i + 1 < text.length() ? text.charAt(i + 1) - '0' : 0xF;
+                    out.writeByte(high << 4 | low);
+                }
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
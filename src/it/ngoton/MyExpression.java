@@ -0,0 +1,584 @@
+package it.ngoton;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A compiled arithmetic expression, evaluated with {@link MyBigInteger} or {@link MyBigDecimal}.
+ * <p>The source is parsed once into a tree, which can then be evaluated many times with different variable values.
+ * <pre>
+ *   MyExpression f = MyExpression.compile("gcd(x, 12) + -(x - 1) ^ 2");
+ *   f.evaluate(new MyBigInteger(8));                     // 4 + -(7^2) = -45
+ * </pre>
+ * Grammar, from the lowest precedence to the highest:
+ * <pre>
+ *   expression := term (('+' | '-') term)*
+ *   term       := unary (('*' | '/' | '%') unary)*
+ *   unary      := ('-' | '+') unary | power
+ *   power      := primary ('^' unary)?                  right-associative: 2 ^ 3 ^ 2 = 2 ^ 9
+ *   primary    := number | variable | function '(' expression (',' expression)* ')' | '(' expression ')'
+ * </pre>
+ * {@code -2 ^ 2} is {@code -(2 ^ 2) = -4}, like in mathematics. Functions: {@code sqrt(x)}, {@code pow(x, n)},
+ * {@code factorial(n)} and {@code gcd(a, b)}.
+ * <p>Compiled expressions are immutable and can be shared between threads.
+ * <p>Sources nested deeper than {@value #MAX_NESTING} levels (parentheses, signs, exponents) or whose tree is higher
+ * than {@value #MAX_HEIGHT} nodes (long chains of operators) are rejected when compiled, so parsing and evaluating
+ * never overflow the stack.
+ */
+public class MyExpression {
+    static final int MAX_NESTING = 500;
+    static final int MAX_HEIGHT = 2000;
+
+    private final String source;
+    private final Node root;
+    /**
+     * Variable names, in order of first appearance. A variable is read from {@code slots[index]} when evaluated.
+     */
+    private final String[] variables;
+
+    private MyExpression(String source, Node root, String[] variables) {
+        this.source = source;
+        this.root = root;
+        this.variables = variables;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the expression is malformed
+     */
+    public static MyExpression compile(String source) {
+        return compile(source, false);
+    }
+
+    /**
+     * @param signedLiterals whether a {@code '-'} written right before a number is part of the number, as in the
+     *                       {@code "x op y"} form {@link MyBigInteger#calculate} has always read:
+     *                       {@code "-2 ^ 2"} is then {@code (-2) ^ 2 = 4}. {@code "- 2 ^ 2"} and {@code "-(2) ^ 2"}
+     *                       are still {@code -4}.
+     */
+    static MyExpression compile(String source, boolean signedLiterals) {
+        Parser parser = new Parser(source, signedLiterals);
+        Node root = parser.parse();
+        return new MyExpression(source, root, parser.variables.toArray(new String[0]));
+    }
+
+    public List<String> variables() {
+        return Collections.unmodifiableList(Arrays.asList(variables));
+    }
+
+    /**
+     * @param values one value per {@link #variables()}, in the same order
+     */
+    public MyBigInteger evaluate(MyBigInteger... values) {
+        return evaluate(INTEGER, checkArity(values));
+    }
+
+    public MyBigInteger evaluate(Map<String, MyBigInteger> bindings) {
+        return evaluate(INTEGER, bind(bindings));
+    }
+
+    /**
+     * @param values one value per {@link #variables()}, in the same order
+     */
+    public MyBigDecimal evaluateDecimal(MyBigDecimal... values) {
+        return evaluate(DECIMAL, checkArity(values));
+    }
+
+    public MyBigDecimal evaluateDecimal(Map<String, MyBigDecimal> bindings) {
+        return evaluate(DECIMAL, bind(bindings));
+    }
+
+    <T> T evaluate(Arithmetic<T> arithmetic, Object[] slots) {
+        return root.evaluate(arithmetic, slots);
+    }
+
+    private Object[] checkArity(Object[] values) {
+        if (values.length != variables.length) {
+            throw new IllegalArgumentException("Expected " + variables.length + " values for " + variables() + ", got " + values.length);
+        }
+        return values;
+    }
+
+    private Object[] bind(Map<String, ?> bindings) {
+        Object[] slots = new Object[variables.length];
+        for (int i = 0; i < variables.length; i++) {
+            slots[i] = bindings.get(variables[i]);
+            if (slots[i] == null) throw new IllegalArgumentException("Unbound variable " + variables[i]);
+        }
+        return slots;
+    }
+
+    @Override
+    public String toString() {
+        return source;
+    }
+
+    /**
+     * The operations a tree is evaluated with, one implementation per number type.
+     */
+    interface Arithmetic<T> {
+        T literal(Literal literal);
+        T add(T x, T y);
+        T subtract(T x, T y);
+        T multiply(T x, T y);
+        T divide(T x, T y);
+        T mod(T x, T y);
+        T pow(T x, T y);
+        T negate(T x);
+        T sqrt(T x);
+        T factorial(T x);
+        T gcd(T x, T y);
+    }
+
+    static final Arithmetic<MyBigInteger> INTEGER = new Arithmetic<>() {
+        @Override
+        public MyBigInteger literal(Literal literal) {
+            if (literal.integer == null) throw new ArithmeticException("Decimal number " + literal.text + " in an integer expression");
+            return literal.integer;
+        }
+
+        @Override
+        public MyBigInteger add(MyBigInteger x, MyBigInteger y) {
+            return x.add(y);
+        }
+
+        @Override
+        public MyBigInteger subtract(MyBigInteger x, MyBigInteger y) {
+            return x.subtract(y);
+        }
+
+        @Override
+        public MyBigInteger multiply(MyBigInteger x, MyBigInteger y) {
+            return x.multiply(y);
+        }
+
+        @Override
+        public MyBigInteger divide(MyBigInteger x, MyBigInteger y) {
+            return x.divide(y);
+        }
+
+        @Override
+        public MyBigInteger mod(MyBigInteger x, MyBigInteger y) {
+            return x.mod(y);
+        }
+
+        @Override
+        public MyBigInteger pow(MyBigInteger x, MyBigInteger y) {
+            return x.pow(y.intValue());
+        }
+
+        @Override
+        public MyBigInteger negate(MyBigInteger x) {
+            return x.negate();
+        }
+
+        @Override
+        public MyBigInteger sqrt(MyBigInteger x) {
+            if (x.isNegative()) throw new ArithmeticException("Square root of a negative number");
+            return x.sqrt();
+        }
+
+        @Override
+        public MyBigInteger factorial(MyBigInteger x) {
+            return MyBigInteger.factorial(x.intValue());
+        }
+
+        @Override
+        public MyBigInteger gcd(MyBigInteger x, MyBigInteger y) {
+            return x.gcd(y);
+        }
+    };
+
+    /**
+     * Decimal operations. {@code %}, {@code factorial}, {@code gcd} and the exponent of {@code ^} need integer values
+     * (any scale, e.g. {@code 4.00}); {@code /} and {@code sqrt} keep 10 extra digits like {@link MyBigDecimal#divide}.
+     */
+    static final Arithmetic<MyBigDecimal> DECIMAL = new Arithmetic<>() {
+        private final MyBigDecimal one = new MyBigDecimal(MyBigInteger.ONE, 0);
+
+        @Override
+        public MyBigDecimal literal(Literal literal) {
+            return literal.decimal;
+        }
+
+        @Override
+        public MyBigDecimal add(MyBigDecimal x, MyBigDecimal y) {
+            return x.add(y);
+        }
+
+        @Override
+        public MyBigDecimal subtract(MyBigDecimal x, MyBigDecimal y) {
+            return x.subtract(y);
+        }
+
+        @Override
+        public MyBigDecimal multiply(MyBigDecimal x, MyBigDecimal y) {
+            return x.multiply(y);
+        }
+
+        @Override
+        public MyBigDecimal divide(MyBigDecimal x, MyBigDecimal y) {
+            return x.divide(y);
+        }
+
+        @Override
+        public MyBigDecimal mod(MyBigDecimal x, MyBigDecimal y) {
+            return new MyBigDecimal(integer(x).mod(integer(y)), 0);
+        }
+
+        @Override
+        public MyBigDecimal pow(MyBigDecimal x, MyBigDecimal y) {
+            int exponent = integer(y).intValue();
+            MyBigDecimal result = one;
+            for (int i = Math.abs(exponent); i > 0; i--) {
+                MyCancellation.check();
+                result = result.multiply(x);
+            }
+            return exponent < 0 ? one.divide(result) : result;
+        }
+
+        @Override
+        public MyBigDecimal negate(MyBigDecimal x) {
+            return new MyBigDecimal(x.unscaledValue().negate(), x.scale());
+        }
+
+        /**
+         * <code>√(u / 10<sup>s</sup>) = √(u * 10<sup>2p + s</sup>) / 10<sup>p + s</sup></code>
+         */
+        @Override
+        public MyBigDecimal sqrt(MyBigDecimal x) {
+            if (x.unscaledValue().isNegative()) throw new ArithmeticException("Square root of a negative number");
+            int extra = 10;
+            int[] digits = x.unscaledValue().digits();
+            int shift = 2 * extra + x.scale();
+            int[] shifted = new int[digits.length + shift];
+            System.arraycopy(digits, 0, shifted, shift, digits.length);
+            MyBigInteger root = new MyBigInteger(shifted, 1).sqrt();
+            return new MyBigDecimal(root, extra + x.scale());
+        }
+
+        @Override
+        public MyBigDecimal factorial(MyBigDecimal x) {
+            return new MyBigDecimal(MyBigInteger.factorial(integer(x).intValue()), 0);
+        }
+
+        @Override
+        public MyBigDecimal gcd(MyBigDecimal x, MyBigDecimal y) {
+            return new MyBigDecimal(integer(x).gcd(integer(y)), 0);
+        }
+
+        /**
+         * 12.00 -> 12, 12.50 -> ArithmeticException
+         */
+        private MyBigInteger integer(MyBigDecimal x) {
+            int[] digits = x.unscaledValue().digits();
+            int scale = Math.min(x.scale(), digits.length);
+            for (int i = 0; i < scale; i++) {
+                if (digits[i] != 0) throw new ArithmeticException("Not an integer: " + x);
+            }
+            return new MyBigInteger(Arrays.copyOfRange(digits, scale, digits.length), x.unscaledValue().signum());
+        }
+    };
+
+    /*
+     * Evaluation tree
+     */
+
+    abstract static class Node {
+        /**
+         * Levels of nodes below and including this one, which is the recursion depth of {@link #evaluate}.
+         */
+        final int height;
+
+        Node(int height) {
+            this.height = height;
+        }
+
+        abstract <T> T evaluate(Arithmetic<T> arithmetic, Object[] slots);
+    }
+
+    static final class Literal extends Node {
+        final String text;
+        /**
+         * {@code null} for a decimal literal such as {@code 1.5}.
+         */
+        final MyBigInteger integer;
+        final MyBigDecimal decimal;
+
+        private Literal(String text) {
+            super(1);
+            this.text = text;
+            this.decimal = new MyBigDecimal(text);
+            this.integer = decimal.scale() == 0 ? decimal.unscaledValue() : null;
+        }
+
+        @Override
+        <T> T evaluate(Arithmetic<T> arithmetic, Object[] slots) {
+            return arithmetic.literal(this);
+        }
+    }
+
+    static final class Variable extends Node {
+        private final int slot;
+
+        private Variable(int slot) {
+            super(1);
+            this.slot = slot;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        <T> T evaluate(Arithmetic<T> arithmetic, Object[] slots) {
+            return (T) slots[slot];
+        }
+    }
+
+    static final class Negate extends Node {
+        private final Node operand;
+
+        private Negate(Node operand) {
+            super(operand.height + 1);
+            this.operand = operand;
+        }
+
+        @Override
+        <T> T evaluate(Arithmetic<T> arithmetic, Object[] slots) {
+            return arithmetic.negate(operand.evaluate(arithmetic, slots));
+        }
+    }
+
+    static final class Binary extends Node {
+        final char operator;
+        private final Node left;
+        private final Node right;
+
+        private Binary(char operator, Node left, Node right) {
+            super(Math.max(left.height, right.height) + 1);
+            this.operator = operator;
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        <T> T evaluate(Arithmetic<T> arithmetic, Object[] slots) {
+            T x = left.evaluate(arithmetic, slots);
+            T y = right.evaluate(arithmetic, slots);
+            switch (operator) {
+                case '+':
+                    return arithmetic.add(x, y);
+                case '-':
+                    return arithmetic.subtract(x, y);
+                case '*':
+                    return arithmetic.multiply(x, y);
+                case '/':
+                    return arithmetic.divide(x, y);
+                case '%':
+                    return arithmetic.mod(x, y);
+                case '^':
+                    return arithmetic.pow(x, y);
+                default : throw new IllegalStateException("Operation not supported!");
+            }
+        }
+    }
+
+    static final class Call extends Node {
+        final String function;
+        private final Node[] arguments;
+
+        private Call(String function, Node[] arguments) {
+            super(Arrays.stream(arguments).mapToInt(argument -> argument.height).max().orElse(0) + 1);
+            this.function = function;
+            this.arguments = arguments;
+        }
+
+        @Override
+        <T> T evaluate(Arithmetic<T> arithmetic, Object[] slots) {
+            T x = arguments[0].evaluate(arithmetic, slots);
+            switch (function) {
+                case "sqrt":
+                    return arithmetic.sqrt(x);
+                case "factorial":
+                    return arithmetic.factorial(x);
+                case "pow":
+                    return arithmetic.pow(x, arguments[1].evaluate(arithmetic, slots));
+                case "gcd":
+                    return arithmetic.gcd(x, arguments[1].evaluate(arithmetic, slots));
+                default : throw new IllegalStateException("Function not supported!");
+            }
+        }
+
+        static int arity(String function) {
+            switch (function) {
+                case "sqrt":
+                case "factorial":
+                    return 1;
+                case "pow":
+                case "gcd":
+                    return 2;
+                default : return -1;
+            }
+        }
+    }
+
+    /**
+     * Recursive descent parser, reading the tokens straight from the source text.
+     */
+    private static class Parser {
+        private final String source;
+        private final boolean signedLiterals;
+        private final List<String> variables = new ArrayList<>();
+        private int position;
+        /**
+         * Nested calls of {@link #unary()}, every level of recursion of the parser goes through it.
+         */
+        private int nesting;
+
+        private Parser(String source, boolean signedLiterals) {
+            this.source = source;
+            this.signedLiterals = signedLiterals;
+        }
+
+        private Node parse() {
+            Node node = expression();
+            skipSpaces();
+            if (position < source.length()) throw error("Unexpected '" + source.charAt(position) + "'");
+            return node;
+        }
+
+        private Node expression() {
+            Node node = term();
+            while (true) {
+                if (accept('+')) node = limit(new Binary('+', node, term()));
+                else if (accept('-')) node = limit(new Binary('-', node, term()));
+                else return node;
+            }
+        }
+
+        private Node term() {
+            Node node = unary();
+            while (true) {
+                if (accept('*')) node = limit(new Binary('*', node, unary()));
+                else if (accept('/')) node = limit(new Binary('/', node, unary()));
+                else if (accept('%')) node = limit(new Binary('%', node, unary()));
+                else return node;
+            }
+        }
+
+        private Node unary() {
+            if (++nesting > MAX_NESTING) throw error("Expression nested deeper than " + MAX_NESTING + " levels");
+            try {
+                if (signedLiteral()) return power(); // the sign is read by primary()
+                if (accept('-')) return limit(new Negate(unary()));
+                if (accept('+')) return unary();
+                return power();
+            }
+            finally {
+                nesting--;
+            }
+        }
+
+        private Node power() {
+            Node base = primary();
+            if (accept('^')) return limit(new Binary('^', base, unary()));
+            return base;
+        }
+
+        /**
+         * With {@code signedLiterals}: a {@code '-'} immediately followed by a digit.
+         */
+        private boolean signedLiteral() {
+            skipSpaces();
+            return signedLiterals && position + 1 < source.length() && source.charAt(position) == '-'
+                    && (isDigit(source.charAt(position + 1)) || source.charAt(position + 1) == '.');
+        }
+
+        private Node limit(Node node) {
+            if (node.height > MAX_HEIGHT) throw error("Expression higher than " + MAX_HEIGHT + " operations");
+            return node;
+        }
+
+        private Node primary() {
+            skipSpaces();
+            if (position == source.length()) throw error("Unexpected end of expression");
+            char c = source.charAt(position);
+            if (accept('(')) {
+                Node node = expression();
+                expect(')');
+                return node;
+            }
+            if (isDigit(c) || c == '.' || signedLiteral()) {
+                int start = position;
+                if (c == '-') position++;
+                while (position < source.length() && (isDigit(source.charAt(position)) || source.charAt(position) == '.')) {
+                    position++;
+                }
+                try {
+                    return new Literal(source.substring(start, position));
+                }
+                catch (NumberFormatException e) {
+                    throw error("Invalid number " + source.substring(start, position));
+                }
+            }
+            if (Character.isLetter(c) || c == '_') {
+                int start = position;
+                while (position < source.length() && (Character.isLetterOrDigit(source.charAt(position)) || source.charAt(position) == '_')) {
+                    position++;
+                }
+                String name = source.substring(start, position);
+                if (accept('(')) {
+                    return call(name);
+                }
+                int slot = variables.indexOf(name);
+                if (slot < 0) {
+                    slot = variables.size();
+                    variables.add(name);
+                }
+                return new Variable(slot);
+            }
+            throw error("Unexpected '" + c + "'");
+        }
+
+        private Node call(String function) {
+            int arity = Call.arity(function);
+            if (arity < 0) throw error("Unknown function " + function);
+            List<Node> arguments = new ArrayList<>();
+            if (!accept(')')) {
+                do {
+                    arguments.add(expression());
+                } while (accept(','));
+                expect(')');
+            }
+            if (arguments.size() != arity) throw error(function + " expects " + arity + " argument(s)");
+            return limit(new Call(function, arguments.toArray(new Node[0])));
+        }
+
+        private boolean accept(char c) {
+            skipSpaces();
+            if (position < source.length() && source.charAt(position) == c) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(char c) {
+            if (!accept(c)) throw error("Expected '" + c + "'");
+        }
+
+        private void skipSpaces() {
+            while (position < source.length() && Character.isWhitespace(source.charAt(position))) {
+                position++;
+            }
+        }
+
+        private static boolean isDigit(char c) {
+            return c >= '0' && c <= '9';
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(message + " at position " + position + " in \"" + source + "\"");
+        }
+    }
+}
@@ -0,0 +1,400 @@
+package it.ngoton;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.ToLongBiFunction;
+
+/**
+ * Bounded caches in front of {@link MyExpression}, safe to share between threads.
+ * <ul>
+ *     <li>Compiled expressions, keyed by their source text, evicted <b>least recently used</b> first
+ *     once there are more than {@code maxExpressions}.
+ *     <li>An optional memo table for the results of the costly pure operations
+ *     ({@code ^}, {@code pow}, {@code factorial}, {@code sqrt}, {@code gcd}), keyed by the operation and its operands,
+ *     so {@code factorial(5000)} is computed once even when it appears in different formulas.
+ *     Entries are evicted least recently used first once their estimated size exceeds {@code maxMemoBytes}.
+ * </ul>
+ * Both tables are {@link ConcurrentHashMap}s, a hit takes no lock. The LRU order is approximate: every entry keeps
+ * the tick of a clock that advances on each insertion, and once a table is over its bound one thread removes the
+ * entries with the oldest ticks until it is back to 7/8 of the bound. Values are computed outside of the tables:
+ * two threads missing on the same key at the same time may both compute it, and the last one wins.
+ */
+public class MyExpressionCache {
+    /**
+     * A shared cache without memo table, for {@link MyBatchCalculator} and {@link MyCalculatorServer}.
+     */
+    public static final MyExpressionCache DEFAULT = new MyExpressionCache(1024);
+    /**
+     * The cache of {@link MyBigInteger#calculate(String)}, which compiles with signed literals so the
+     * {@code "x op y"} expressions it always accepted keep their results, see {@link MyExpression#compile(String, boolean)}.
+     */
+    static final MyExpressionCache CALCULATE = new MyExpressionCache(1024, 0, true);
+
+    private final boolean signedLiterals;
+    private final Table<String, MyExpression> expressions;
+    private final Table<Key, Object> memo;
+
+    private final MyExpression.Arithmetic<MyBigInteger> integer;
+    private final MyExpression.Arithmetic<MyBigDecimal> decimal;
+
+    private final LongAdder expressionHits = new LongAdder();
+    private final LongAdder expressionMisses = new LongAdder();
+    private final LongAdder memoHits = new LongAdder();
+    private final LongAdder memoMisses = new LongAdder();
+
+    public MyExpressionCache(int maxExpressions) {
+        this(maxExpressions, 0);
+    }
+
+    /**
+     * @param maxExpressions number of compiled expressions kept
+     * @param maxMemoBytes estimated size of the memoized results, {@code 0} disables the memo table
+     */
+    public MyExpressionCache(int maxExpressions, long maxMemoBytes) {
+        this(maxExpressions, maxMemoBytes, false);
+    }
+
+    private MyExpressionCache(int maxExpressions, long maxMemoBytes, boolean signedLiterals) {
+        if (maxExpressions < 0 || maxMemoBytes < 0) throw new IllegalArgumentException("Negative cache size");
+        this.signedLiterals = signedLiterals;
+        this.expressions = new Table<>(maxExpressions, (source, expression) -> 1);
+        this.memo = new Table<>(maxMemoBytes, (key, value) -> key.size() + sizeOf(value));
+        this.integer = maxMemoBytes > 0 ? new Memoizing<>(MyExpression.INTEGER) : MyExpression.INTEGER;
+        this.decimal = maxMemoBytes > 0 ? new Memoizing<>(MyExpression.DECIMAL) : MyExpression.DECIMAL;
+    }
+
+    /**
+     * @return the cached compiled expression, compiling it on a miss
+     */
+    public MyExpression compile(String source) {
+        MyExpression expression = expressions.get(source);
+        if (expression != null) {
+            expressionHits.increment();
+            return expression;
+        }
+        expressionMisses.increment();
+        expression = MyExpression.compile(source, signedLiterals);
+        expressions.put(source, expression);
+        return expression;
+    }
+
+    public MyBigInteger calculate(String source) {
+        return evaluate(compile(source));
+    }
+
+    public MyBigDecimal calculateDecimal(String source) {
+        return evaluateDecimal(compile(source));
+    }
+
+    /**
+     * Like {@link MyExpression#evaluate(MyBigInteger...)}, going through the memo table.
+     */
+    public MyBigInteger evaluate(MyExpression expression, MyBigInteger... values) {
+        if (values.length != expression.variables().size()) {
+            return expression.evaluate(values); // reports the arity error
+        }
+        return expression.evaluate(integer, values);
+    }
+
+    public MyBigDecimal evaluateDecimal(MyExpression expression, MyBigDecimal... values) {
+        if (values.length != expression.variables().size()) {
+            return expression.evaluateDecimal(values);
+        }
+        return expression.evaluate(decimal, values);
+    }
+
+    public void clear() {
+        expressions.clear();
+        memo.clear();
+    }
+
+    /**
+     * @return the number of compiled expressions kept
+     */
+    public int size() {
+        return expressions.size();
+    }
+
+    public long expressionHits() {
+        return expressionHits.sum();
+    }
+
+    public long expressionMisses() {
+        return expressionMisses.sum();
+    }
+
+    public long memoHits() {
+        return memoHits.sum();
+    }
+
+    public long memoMisses() {
+        return memoMisses.sum();
+    }
+
+    /**
+     * @return estimated size of the memoized results
+     */
+    public long memoBytes() {
+        return memo.weight();
+    }
+
+    @Override
+    public String toString() {
+        return "MyExpressionCache{expressions=" + expressionHits() + "/" + (expressionHits() + expressionMisses())
+                + " hits, memo=" + memoHits() + "/" + (memoHits() + memoMisses()) + " hits, " + memoBytes() + " bytes}";
+    }
+
+    /*
+     * Memo table
+     */
+
+    @SuppressWarnings("unchecked")
+    private <T> T memoized(char operation, T x, T y, MyExpression.Arithmetic<T> arithmetic) {
+        Key key = new Key(operation, x, y);
+        Object cached = memo.get(key);
+        if (cached != null) {
+            memoHits.increment();
+            return (T) cached;
+        }
+        memoMisses.increment();
+        T result;
+        switch (operation) {
+            case '^':
+                result = arithmetic.pow(x, y);
+                break;
+            case '!':
+                result = arithmetic.factorial(x);
+                break;
+            case 'r':
+                result = arithmetic.sqrt(x);
+                break;
+            case 'g':
+                result = arithmetic.gcd(x, y);
+                break;
+            default : throw new IllegalStateException("Operation not memoized!");
+        }
+        memo.put(key, result);
+        return result;
+    }
+
+    /**
+     * Rough heap size: object headers, fields and the digit array.
+     */
+    static long sizeOf(Object value) {
+        if (value instanceof MyBigInteger) {
+            return 16 + 16 + 4L * ((MyBigInteger) value).digits().length;
+        }
+        if (value instanceof MyBigDecimal) {
+            return 24 + sizeOf(((MyBigDecimal) value).unscaledValue());
+        }
+        return value == null ? 0 : 16;
+    }
+
+    /**
+     * A bounded map with approximate LRU eviction, see the class comment.
+     */
+    private static final class Table<K, V> {
+        private final ConcurrentHashMap<K, Entry<V>> map = new ConcurrentHashMap<>();
+        private final long maxWeight;
+        private final ToLongBiFunction<K, V> weigher;
+        private final AtomicLong weight = new AtomicLong();
+        private final AtomicLong clock = new AtomicLong();
+        private final ReentrantLock eviction = new ReentrantLock();
+
+        private Table(long maxWeight, ToLongBiFunction<K, V> weigher) {
+            this.maxWeight = maxWeight;
+            this.weigher = weigher;
+        }
+
+        private V get(K key) {
+            Entry<V> entry = map.get(key);
+            if (entry == null) return null;
+            long now = clock.get();
+            if (entry.lastUsed != now) { // no write while nothing is inserted, hot entries stay shared in the caches
+                entry.lastUsed = now;
+            }
+            return entry.value;
+        }
+
+        private void put(K key, V value) {
+            long size = weigher.applyAsLong(key, value);
+            if (size > maxWeight) return;
+            Entry<V> previous = map.put(key, new Entry<>(value, size, clock.incrementAndGet()));
+            long total = weight.addAndGet(previous == null ? size : size - previous.weight);
+            if (total > maxWeight) {
+                evict();
+            }
+        }
+
+        /**
+         * Removes the least recently used entries until the table is back to 7/8 of its bound. Only one thread
+         * evicts at a time, the others go on: the table may exceed its bound until the eviction is done. The evicting
+         * thread checks the bound again after releasing the lock, so the entries put meanwhile are not left over.
+         */
+        private void evict() {
+            while (weight.get() > maxWeight && eviction.tryLock()) {
+                try {
+                    List<Victim<K, V>> victims = new ArrayList<>(map.size());
+                    map.forEach((key, entry) -> victims.add(new Victim<>(key, entry)));
+                    victims.sort(Comparator.comparingLong(victim -> victim.lastUsed));
+                    long target = maxWeight - maxWeight / 8;
+                    for (int i = 0; i < victims.size() && weight.get() > target; i++) {
+                        remove(victims.get(i).key, victims.get(i).entry);
+                    }
+                }
+                finally {
+                    eviction.unlock();
+                }
+            }
+        }
+
+        private void remove(K key, Entry<V> entry) {
+            if (map.remove(key, entry)) {
+                weight.addAndGet(-entry.weight);
+            }
+        }
+
+        private void clear() {
+            map.forEach(this::remove);
+        }
+
+        private int size() {
+            return map.size();
+        }
+
+        private long weight() {
+            return weight.get();
+        }
+    }
+
+    private static final class Entry<V> {
+        private final V value;
+        private final long weight;
+        private volatile long lastUsed;
+
+        private Entry(V value, long weight, long lastUsed) {
+            this.value = value;
+            this.weight = weight;
+            this.lastUsed = lastUsed;
+        }
+    }
+
+    /**
+     * An entry with its tick read once, the sort needs ticks that do not move under it.
+     */
+    private static final class Victim<K, V> {
+        private final K key;
+        private final Entry<V> entry;
+        private final long lastUsed;
+
+        private Victim(K key, Entry<V> entry) {
+            this.key = key;
+            this.entry = entry;
+            this.lastUsed = entry.lastUsed;
+        }
+    }
+
+    private static final class Key {
+        private final char operation;
+        private final Object x;
+        private final Object y;
+        private final int hash;
+
+        private Key(char operation, Object x, Object y) {
+            this.operation = operation;
+            this.x = x;
+            this.y = y;
+            this.hash = Objects.hash(operation, x, y);
+        }
+
+        private long size() {
+            return 32 + sizeOf(x) + sizeOf(y);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) return true;
+            if (!(obj instanceof Key)) return false;
+            Key other = (Key) obj;
+            return operation == other.operation && hash == other.hash && x.equals(other.x) && Objects.equals(y, other.y);
+        }
+    }
+
+    /**
+     * Delegates every operation, the costly ones through the memo table.
+     */
+    private class Memoizing<T> implements MyExpression.Arithmetic<T> {
+        private final MyExpression.Arithmetic<T> delegate;
+
+        private Memoizing(MyExpression.Arithmetic<T> delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public T literal(MyExpression.Literal literal) {
+            return delegate.literal(literal);
+        }
+
+        @Override
+        public T add(T x, T y) {
+            return delegate.add(x, y);
+        }
+
+        @Override
+        public T subtract(T x, T y) {
+            return delegate.subtract(x, y);
+        }
+
+        @Override
+        public T multiply(T x, T y) {
+            return delegate.multiply(x, y);
+        }
+
+        @Override
+        public T divide(T x, T y) {
+            return delegate.divide(x, y);
+        }
+
+        @Override
+        public T mod(T x, T y) {
+            return delegate.mod(x, y);
+        }
+
+        @Override
+        public T pow(T x, T y) {
+            return memoized('^', x, y, delegate);
+        }
+
+        @Override
+        public T negate(T x) {
+            return delegate.negate(x);
+        }
+
+        @Override
+        public T sqrt(T x) {
+            return memoized('r', x, null, delegate);
+        }
+
+        @Override
+        public T factorial(T x) {
+            return memoized('!', x, null, delegate);
+        }
+
+        @Override
+        public T gcd(T x, T y) {
+            return memoized('g', x, y, delegate);
+        }
+    }
+}
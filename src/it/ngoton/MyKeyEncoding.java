@@ -0,0 +1,151 @@
+package it.ngoton;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Order-preserving binary keys for {@link MyBigInteger} and {@link MyBigDecimal}.
+ * <p>Comparing two encoded keys as <b>unsigned</b> byte strings (e.g. {@link java.util.Arrays#compareUnsigned})
+ * gives the same result as comparing the numbers, across signs, magnitudes and scales.
+ * Integers and decimals share the encoding, so their keys can be mixed in one index.
+ * <p>The number is written in scientific form <code>0.d<sub>1</sub>d<sub>2</sub>...d<sub>k</sub> * 10<sup>E</sup></code>,
+ * with {@code d1 != 0} and {@code dk != 0} (trailing zeros are dropped):
+ * <pre>
+ *   byte       sign       0x01 negative, 0x02 zero, 0x03 positive   (zero stops here)
+ *   4 bytes    E          big-endian, sign bit flipped so negative exponents sort first
+ *   nibbles    d1..dk     each digit as d+1 (1..10), followed by a 0 terminator, padded with 0
+ *
+ *   123.45  ->  03 | 80 00 00 03 | 23 45 56 00       0.12345 * 10^3
+ *   1.2     ->  03 | 80 00 00 01 | 23 00             0.12    * 10^1
+ *   1.23    ->  03 | 80 00 00 01 | 23 40             terminator 0 < digit 3, so 1.2 < 1.23
+ * </pre>
+ * <p>A larger exponent always means a larger magnitude because {@code d1 != 0}. For the same exponent the digits
+ * compare like text, and the terminator makes a prefix smaller. For negative numbers every byte after the sign is
+ * inverted, which reverses the order.
+ * <p>Equal values with different scales ({@code 1.5} and {@code 1.50}) have the same key, and decode to the
+ * smallest scale.
+ */
+public class MyKeyEncoding {
+    private static final byte NEGATIVE = 0x01;
+    private static final byte ZERO = 0x02;
+    private static final byte POSITIVE = 0x03;
+
+    private MyKeyEncoding() {
+    }
+
+    public static int encodedLength(MyBigInteger value) {
+        return encodedLength(value, 0);
+    }
+
+    public static int encodedLength(MyBigDecimal value) {
+        return encodedLength(value.unscaledValue(), value.scale());
+    }
+
+    private static int encodedLength(MyBigInteger unscaled, int scale) {
+        if (unscaled.signum() == 0) return 1;
+        int[] digits = unscaled.digits();
+        int significant = digits.length - lowestNonZero(digits);
+        return 1 + 4 + (significant + 2) / 2; // sign, exponent, digits + terminator nibbles
+    }
+
+    /**
+     * Writes the key of {@code value} at the position of {@code dst}, without allocating.
+     * @throws java.nio.BufferOverflowException if {@code dst} has less than {@link #encodedLength(MyBigInteger)} bytes left
+     */
+    public static void encode(MyBigInteger value, ByteBuffer dst) {
+        encode(value, 0, dst);
+    }
+
+    public static void encode(MyBigDecimal value, ByteBuffer dst) {
+        encode(value.unscaledValue(), value.scale(), dst);
+    }
+
+    private static void encode(MyBigInteger unscaled, int scale, ByteBuffer dst) {
+        int signum = unscaled.signum();
+        if (signum == 0) {
+            dst.put(ZERO);
+            return;
+        }
+        dst.put(signum > 0 ? POSITIVE : NEGATIVE);
+        int flip = signum > 0 ? 0 : 0xFF; // invert every byte of a negative number
+
+        int[] digits = unscaled.digits();
+        int exponent = digits.length - scale;
+        dst.putInt((exponent ^ Integer.MIN_VALUE) ^ (flip == 0 ? 0 : -1));
+
+        int lowest = lowestNonZero(digits);
+        for (int i = digits.length - 1; i >= lowest; i -= 2) {
+            int high = digits[i] + 1;
+            int low = i - 1 >= lowest ? digits[i - 1] + 1 : 0; // terminator
+            dst.put((byte) ((high << 4 | low) ^ flip));
+        }
+        if ((digits.length - lowest) % 2 == 0) { // terminator did not fit in the last digit byte
+            dst.put((byte) flip);
+        }
+    }
+
+    /**
+     * Reads one key from the position of {@code src}.
+     */
+    public static MyBigDecimal decodeDecimal(ByteBuffer src) {
+        byte sign = src.get();
+        if (sign == ZERO) return new MyBigDecimal(MyBigInteger.ZERO, 0);
+        if (sign != POSITIVE && sign != NEGATIVE) throw new IllegalArgumentException("Not a number key");
+        int flip = sign == POSITIVE ? 0 : 0xFF;
+        int exponent = (src.getInt() ^ (flip == 0 ? 0 : -1)) ^ Integer.MIN_VALUE;
+
+        // Count the digits first, so they can be written least significant first
+        int start = src.position();
+        int count = 0;
+        while (true) {
+            int packed = (src.get() ^ flip) & 0xFF;
+            if ((packed >>> 4) == 0) break;
+            count++;
+            if ((packed & 0xF) == 0) break;
+            count++;
+        }
+        int end = src.position();
+
+        // value = d1..dk * 10^(E-k)
+        int shift = Math.max(exponent - count, 0);
+        int[] digits = new int[count + shift];
+        for (int i = 0; i < count; i++) {
+            int packed = (src.get(start + i / 2) ^ flip) & 0xFF;
+            int nibble = i % 2 == 0 ? packed >>> 4 : packed & 0xF;
+            digits[digits.length - 1 - i] = nibble - 1;
+        }
+        src.position(end);
+        int scale = Math.max(count - exponent, 0);
+        return new MyBigDecimal(new MyBigInteger(digits, sign == POSITIVE ? 1 : -1), scale);
+    }
+
+    /**
+     * Reads one key from the position of {@code src}.
+     * @throws ArithmeticException if the key holds a fraction
+     */
+    public static MyBigInteger decodeInteger(ByteBuffer src) {
+        MyBigDecimal value = decodeDecimal(src);
+        if (value.scale() != 0) throw new ArithmeticException("Key is not an integer");
+        return value.unscaledValue();
+    }
+
+    /**
+     * Compares the remaining bytes of two keys as unsigned bytes.
+     * <p>Note that {@link ByteBuffer#compareTo} compares <b>signed</b> bytes and cannot be used for these keys.
+     */
+    public static int compare(ByteBuffer a, ByteBuffer b) {
+        int length = Math.min(a.remaining(), b.remaining());
+        for (int i = 0; i < length; i++) {
+            int compare = Byte.compareUnsigned(a.get(a.position() + i), b.get(b.position() + i));
+            if (compare != 0) return compare;
+        }
+        return a.remaining() - b.remaining();
+    }
+
+    private static int lowestNonZero(int[] digits) {
+        int i = 0;
+        while (digits[i] == 0) {
+            i++;
+        }
+        return i;
+    }
+}
@@ -1,9 +1,15 @@
 package it.ngoton;
 
+import java.util.Arrays;
+
 /**
  * Custom Mathematical operations for learning purposes.
  */
 public class MyMath {
+    /**
+     * {@code isqrt(Long.MAX_VALUE)}, the largest {@code r} with {@code r * r} in range.
+     */
+    private static final long MAX_LONG_ROOT = 3037000499L;
 
     /**
      * Function to add two numbers without using arithmetic operators
@@ -50,6 +56,102 @@ public class MyMath {
         return a;
     }
 
+    /**
+     * Adds two unsigned numbers of any length stored in {@code long} words (limbs), least significant word first:
+     * {@code value = a[0] + a[1] * 2^64 + a[2] * 2^128 + ...}
+     * <p>Like {@link #sum(int, int)} but with 64 bits per step: the hardware adds the words, only the carry between
+     * words is computed with bitwise operations, without a branch. The carry out of {@code s = x + y + carry} is the
+     * top bit of
+     * <pre>
+     *   (x & y) | ((x | y) & ~s)
+     *   both top bits set, or one of them set and the top bit of s cleared (the addition below wrapped into it)
+     *
+     *   4-bit words: x = 1100, y = 0110, carry = 0   s = 0010
+     *   x & y = 0100    (x | y) & ~s = 1110 & 1101 = 1100    carry = top bit of 1100 = 1
+     * </pre>
+     * {@code result} may be {@code a} or {@code b}, it must have room for the longer operand.
+     * @return the carry out of the most significant word, 0 or 1
+     */
+    public static long add(long[] a, long[] b, long[] result) {
+        long[] longer = a.length >= b.length ? a : b;
+        checkResult(longer.length, result.length);
+        int common = Math.min(a.length, b.length);
+        long carry = 0;
+        for (int i = 0; i < common; i++) {
+            long x = a[i], y = b[i];
+            long s = x + y + carry;
+            carry = ((x & y) | ((x | y) & ~s)) >>> 63;
+            result[i] = s;
+        }
+        // y = 0: only the carry propagates
+        for (int i = common; i < longer.length; i++) {
+            long x = longer[i];
+            long s = x + carry;
+            carry = (x & ~s) >>> 63;
+            result[i] = s;
+        }
+        return carry;
+    }
+
+    /**
+     * Subtracts two unsigned numbers stored in {@code long} words like {@link #add(long[], long[], long[])}:
+     * {@code result = a - b} modulo <code>2<sup>64 * result words</sup></code>. The borrow out of
+     * {@code d = x - y - borrow} is the top bit of
+     * <pre>
+     *   (~x & y) | (~(x ^ y) & d)
+     *   only y has the top bit set, or both or neither have it and the subtraction below wrapped into d
+     * </pre>
+     * {@code result} may be {@code a} or {@code b}, it must have room for the longer operand.
+     * @return the borrow out of the most significant word, 1 if {@code a < b}
+     */
+    public static long subtract(long[] a, long[] b, long[] result) {
+        int length = Math.max(a.length, b.length);
+        checkResult(length, result.length);
+        int common = Math.min(a.length, b.length);
+        long borrow = 0;
+        for (int i = 0; i < common; i++) {
+            long x = a[i], y = b[i];
+            long d = x - y - borrow;
+            borrow = ((~x & y) | (~(x ^ y) & d)) >>> 63;
+            result[i] = d;
+        }
+        for (int i = common; i < length; i++) {
+            long x = i < a.length ? a[i] : 0;
+            long y = i < b.length ? b[i] : 0;
+            long d = x - y - borrow;
+            borrow = ((~x & y) | (~(x ^ y) & d)) >>> 63;
+            result[i] = d;
+        }
+        return borrow;
+    }
+
+    /**
+     * Compares two unsigned numbers stored in {@code long} words like {@link #add(long[], long[], long[])},
+     * leading zero words are ignored.
+     * <p>From the most significant word down, the first different word decides, compared as unsigned.
+     * @return -1, 0 or 1 as {@code a} is less than, equal to or greater than {@code b}
+     */
+    public static int compare(long[] a, long[] b) {
+        int lengthA = significantWords(a), lengthB = significantWords(b);
+        if (lengthA != lengthB) return lengthA < lengthB ? -1 : 1;
+        for (int i = lengthA - 1; i >= 0; i--) {
+            if (a[i] != b[i]) return Long.compareUnsigned(a[i], b[i]) < 0 ? -1 : 1;
+        }
+        return 0;
+    }
+
+    private static int significantWords(long[] words) {
+        int length = words.length;
+        while (length > 0 && words[length - 1] == 0) {
+            length--;
+        }
+        return length;
+    }
+
+    private static void checkResult(int needed, int length) {
+        if (length < needed) throw new IllegalArgumentException("Result of " + length + " words, needs " + needed);
+    }
+
     /**
      * Given a positive integer {@code n}, find its square root. If {@code n} is not a perfect square, then return floor of {@code √n}.
      * <p>Using a loop - O(sqrt(n)) Time and O(1) Space
@@ -70,7 +172,7 @@ public class MyMath {
         // start iteration from 1 until the
         // square of a number exceeds n
         int res = 1;
-        while (res * res <= n) {
+        while ((long) res * res <= n) { // in long: res * res overflows int for n near Integer.MAX_VALUE
             res++;
         }
 
@@ -102,14 +204,14 @@ public class MyMath {
 
         // initial search space
         int lo = 1, hi = n;
-        int res = 1;
+        int res = 0; // stays 0 for n = 0
 
         while (lo <= hi) {
             int mid = lo + (hi - lo) / 2;
 
             // if square of mid is less than or equal to n
             // update the result and search in upper half
-            if (mid * mid <= n){
+            if ((long) mid * mid <= n){
                 res = mid;
                 lo = mid + 1;
             }
@@ -150,10 +252,97 @@ public class MyMath {
 
         // If square of res + 1 is less than or equal to n
         // then, it will be our answer
-        if ((res + 1) * (res + 1) <= n) {
+        if ((long) (res + 1) * (res + 1) <= n) {
             res++;
         }
+        // or 1 too high, the rounding of exp and log goes both ways
+        else if ((long) res * res > n) {
+            res--;
+        }
 
         return res;
     }
+
+    /**
+     * Floor of {@code √n}, exact for every {@code int}.
+     * <p>Using the hardware square root - O(1) Time and O(1) Space
+     * <p>Every {@code int} is exact as a {@code double} and {@code Math.sqrt} is correctly rounded, so the truncated
+     * result is already the floor (this holds up to <code>2<sup>52</sup></code>).
+     * @param n
+     * @return {@code √n}
+     * @throws IllegalArgumentException if {@code n} is negative
+     */
+    public static int isqrt(int n) {
+        if (n < 0) throw new IllegalArgumentException("Square root of a negative number: " + n);
+        return (int) Math.sqrt(n);
+    }
+
+    /**
+     * Floor of {@code √n}, exact for every {@code long}.
+     * <p>Using the hardware square root as a seed, then an exact correction - O(1) Time and O(1) Space
+     * <p>Above <code>2<sup>53</sup></code>, {@code n} is rounded when converted to {@code double}, and the seed
+     * can be 1 too high or too low:
+     * <pre>
+     *   n = 2^62 - 1      (double) n = 2^62     Math.sqrt = 2^31     but (2^31)^2 > n   =>  2^31 - 1
+     * </pre>
+     * The seed is at most {@link #MAX_LONG_ROOT}, so {@code r * r} never overflows.
+     * @param n
+     * @return {@code √n}
+     * @throws IllegalArgumentException if {@code n} is negative
+     */
+    public static long isqrt(long n) {
+        if (n < 0) throw new IllegalArgumentException("Square root of a negative number: " + n);
+        long r = (long) Math.sqrt(n);
+        if (r * r > n) {
+            r--;
+        }
+        else if (r < MAX_LONG_ROOT && (r + 1) * (r + 1) <= n) {
+            r++;
+        }
+        return r;
+    }
+
+    /**
+     * {@code out[i] = isqrt(in[i])} for each element of {@code in}, {@code in} and {@code out} may be the same array.
+     * <p>A plain counted loop with no calls left after inlining, that the JIT can unroll (and vectorize on CPUs with
+     * a packed square root).
+     * @throws IllegalArgumentException if the arrays differ in length or a value is negative
+     */
+    public static void isqrt(int[] in, int[] out) {
+        checkLengths(in.length, out.length);
+        for (int i = 0; i < in.length; i++) {
+            out[i] = isqrt(in[i]);
+        }
+    }
+
+    /**
+     * {@code out[i] = isqrt(in[i])} for each element of {@code in}, {@code in} and {@code out} may be the same array.
+     * @throws IllegalArgumentException if the arrays differ in length or a value is negative
+     */
+    public static void isqrt(long[] in, long[] out) {
+        checkLengths(in.length, out.length);
+        for (int i = 0; i < in.length; i++) {
+            out[i] = isqrt(in[i]);
+        }
+    }
+
+    /**
+     * Like {@link #isqrt(int[], int[])}, split over the common fork-join pool.
+     */
+    public static void parallelIsqrt(int[] in, int[] out) {
+        checkLengths(in.length, out.length);
+        Arrays.parallelSetAll(out, i -> isqrt(in[i]));
+    }
+
+    /**
+     * Like {@link #isqrt(long[], long[])}, split over the common fork-join pool.
+     */
+    public static void parallelIsqrt(long[] in, long[] out) {
+        checkLengths(in.length, out.length);
+        Arrays.parallelSetAll(out, i -> isqrt(in[i]));
+    }
+
+    private static void checkLengths(int in, int out) {
+        if (in != out) throw new IllegalArgumentException("Arrays of different lengths: " + in + " and " + out);
+    }
 }
@@ -0,0 +1,128 @@
+package it.ngoton;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+import java.util.ServiceLoader;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
+
+/**
+ * Optional instrumentation of the arithmetic of {@link MyBigInteger} and {@link MyBigDecimal}.
+ * <p>Off by default. Start the JVM with {@code -Dit.ngoton.metrics=true} to turn it on:
+ * <ul>
+ *     <li>every operation is reported to the registered {@link Listener}s: the built-in {@link #STATS}, the ones
+ *     found by {@link ServiceLoader} and the ones passed to {@link #register(Listener)}
+ *     <li>an operation slower than {@code -Dit.ngoton.metrics.slowMillis} (100 by default) is also recorded as a JFR
+ *     event {@code it.ngoton.SlowOperation}, visible in a flight recording ({@code -XX:StartFlightRecording})
+ * </ul>
+ * <p>{@link #ENABLED} is a {@code static final} constant, so when it is {@code false} the JIT removes the
+ * {@code if (MyMetrics.ENABLED)} branches of the hot paths completely:
+ * <pre>
+ *   public MyBigInteger multiply(MyBigInteger other) {
+ *       if (MyMetrics.ENABLED) return MyMetrics.measure(Operation.MULTIPLY, size, () -> product(other));
+ *       return product(other);
+ *   }
+ * </pre>
+ * Only the outermost operation of a thread is measured: the multiplications done by {@code pow} count as {@code pow}.
+ */
+public final class MyMetrics {
+    public static final boolean ENABLED = Boolean.getBoolean("it.ngoton.metrics");
+    static final long SLOW_NANOS = Long.getLong("it.ngoton.metrics.slowMillis", 100) * 1_000_000L;
+
+    /**
+     * Operation counters, operand size and latency histograms of every operation since startup.
+     */
+    public static final MyOperationStats STATS = new MyOperationStats();
+
+    private static final List<Listener> LISTENERS = new CopyOnWriteArrayList<>();
+    private static final ThreadLocal<int[]> DEPTH = ThreadLocal.withInitial(() -> new int[1]);
+
+    static {
+        if (ENABLED) {
+            LISTENERS.add(STATS);
+            for (Listener listener : ServiceLoader.load(Listener.class)) {
+                LISTENERS.add(listener);
+            }
+        }
+    }
+
+    private MyMetrics() {
+    }
+
+    public enum Operation {
+        ADD, SUBTRACT, MULTIPLY, DIVIDE, MOD, POW, FACTORIAL, SQRT, GCD,
+        DECIMAL_ADD, DECIMAL_SUBTRACT, DECIMAL_MULTIPLY, DECIMAL_DIVIDE
+    }
+
+    /**
+     * The SPI: implement it and register it, or list it in {@code META-INF/services/it.ngoton.MyMetrics$Listener}.
+     * <p>Called on the thread of the operation, so it must be quick and thread-safe.
+     */
+    public interface Listener {
+        /**
+         * @param operandDigits number of digits of the largest operand ({@code n} for {@code factorial(n)})
+         * @param allocatedBytes bytes allocated by the operation, {@code -1} if the JVM cannot tell
+         */
+        void record(Operation operation, int operandDigits, long nanos, long allocatedBytes);
+    }
+
+    /**
+     * Adds a listener, it only receives operations when {@link #ENABLED} is {@code true}.
+     */
+    public static void register(Listener listener) {
+        LISTENERS.add(listener);
+    }
+
+    public static void unregister(Listener listener) {
+        LISTENERS.remove(listener);
+    }
+
+    /**
+     * Runs {@code body} and reports its duration and allocations, unless an operation is already measured on this thread.
+     */
+    static <T> T measure(Operation operation, int operandDigits, Supplier<T> body) {
+        int[] depth = DEPTH.get();
+        if (depth[0] > 0) return body.get();
+
+        SlowOperationEvent event = new SlowOperationEvent();
+        long allocated = allocatedBytes();
+        long start = System.nanoTime();
+        event.begin();
+        depth[0]++;
+        T result;
+        try {
+            result = body.get();
+        }
+        finally {
+            depth[0]--;
+        }
+        event.end();
+        long nanos = System.nanoTime() - start;
+        long bytes = Allocations.SUPPORTED ? allocatedBytes() - allocated : -1;
+        if (nanos >= SLOW_NANOS && event.shouldCommit()) {
+            event.operation = operation.name();
+            event.operandDigits = operandDigits;
+            event.allocatedBytes = bytes;
+            event.commit();
+        }
+        for (Listener listener : LISTENERS) {
+            listener.record(operation, operandDigits, nanos, bytes);
+        }
+        return result;
+    }
+
+    private static long allocatedBytes() {
+        if (!Allocations.SUPPORTED) return 0;
+        return ((com.sun.management.ThreadMXBean) Allocations.THREADS).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * Initialized by the first {@link #measure}, so the management beans are not looked up when metrics are off.
+     */
+    private static final class Allocations {
+        private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+        private static final boolean SUPPORTED = THREADS instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) THREADS).isThreadAllocatedMemorySupported();
+    }
+}
@@ -0,0 +1,119 @@
+package it.ngoton;
+
+import java.io.PrintStream;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The built-in {@link MyMetrics.Listener}: counters and log2 histograms per operation.
+ * <p>A histogram bucket {@code b} counts the values {@code v} with {@code 2^(b-1) <= v < 2^b}:
+ * <pre>
+ *   digits    1   2-3   4-7   8-15  ...  1024-2047
+ *   bucket    1   2     3     4          11
+ * </pre>
+ * so 64 buckets cover any {@code long} and a percentile is known within a factor of 2.
+ */
+public class MyOperationStats implements MyMetrics.Listener {
+    private static final int BUCKETS = 64;
+    private static final MyMetrics.Operation[] OPERATIONS = MyMetrics.Operation.values();
+
+    private final LongAdder[] counts = adders();
+    private final LongAdder[] nanos = adders();
+    private final LongAdder[] bytes = adders();
+    private final AtomicLongArray sizes = new AtomicLongArray(OPERATIONS.length * BUCKETS);
+    private final AtomicLongArray latencies = new AtomicLongArray(OPERATIONS.length * BUCKETS);
+
+    private static LongAdder[] adders() {
+        LongAdder[] adders = new LongAdder[OPERATIONS.length];
+        for (int i = 0; i < adders.length; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+
+    @Override
+    public void record(MyMetrics.Operation operation, int operandDigits, long nanos, long allocatedBytes) {
+        int index = operation.ordinal();
+        counts[index].increment();
+        this.nanos[index].add(nanos);
+        if (allocatedBytes > 0) bytes[index].add(allocatedBytes);
+        sizes.incrementAndGet(index * BUCKETS + bucket(operandDigits));
+        latencies.incrementAndGet(index * BUCKETS + bucket(nanos));
+    }
+
+    static int bucket(long value) {
+        return Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(Math.max(value, 0)));
+    }
+
+    public long count(MyMetrics.Operation operation) {
+        return counts[operation.ordinal()].sum();
+    }
+
+    public long totalNanos(MyMetrics.Operation operation) {
+        return nanos[operation.ordinal()].sum();
+    }
+
+    public long allocatedBytes(MyMetrics.Operation operation) {
+        return bytes[operation.ordinal()].sum();
+    }
+
+    /**
+     * @param percentile between 0 and 1
+     * @return the upper bound {@code 2^b - 1} of the bucket holding the percentile latency, 0 if nothing was recorded
+     */
+    public long latencyPercentile(MyMetrics.Operation operation, double percentile) {
+        return percentile(latencies, operation, percentile);
+    }
+
+    /**
+     * @return the upper bound of the bucket holding the percentile operand size, in digits
+     */
+    public long sizePercentile(MyMetrics.Operation operation, double percentile) {
+        return percentile(sizes, operation, percentile);
+    }
+
+    private long percentile(AtomicLongArray histogram, MyMetrics.Operation operation, double percentile) {
+        int offset = operation.ordinal() * BUCKETS;
+        long total = 0;
+        for (int b = 0; b < BUCKETS; b++) {
+            total += histogram.get(offset + b);
+        }
+        long rank = (long) Math.ceil(total * percentile);
+        long seen = 0;
+        for (int b = 0; b < BUCKETS; b++) {
+            seen += histogram.get(offset + b);
+            if (seen >= Math.max(rank, 1)) return b == 0 ? 0 : (1L << b) - 1;
+        }
+        return 0;
+    }
+
+    public void reset() {
+        for (int i = 0; i < OPERATIONS.length; i++) {
+            counts[i].reset();
+            nanos[i].reset();
+            bytes[i].reset();
+        }
+        for (int i = 0; i < sizes.length(); i++) {
+            sizes.set(i, 0);
+            latencies.set(i, 0);
+        }
+    }
+
+    /**
+     * Prints one line per operation that was recorded at least once.
+     */
+    public void report(PrintStream out) {
+        out.printf("%-18s %10s %12s %12s %12s %12s %10s%n",
+                "operation", "count", "total ms", "p50 us", "p99 us", "B/op", "p99 digits");
+        for (MyMetrics.Operation operation : OPERATIONS) {
+            long count = count(operation);
+            if (count == 0) continue;
+            out.printf("%-18s %10d %12.1f %12.1f %12.1f %12d %10d%n", operation, count,
+                    totalNanos(operation) / 1e6,
+                    latencyPercentile(operation, 0.50) / 1e3,
+                    latencyPercentile(operation, 0.99) / 1e3,
+                    allocatedBytes(operation) / count,
+                    sizePercentile(operation, 0.99));
+        }
+    }
+}
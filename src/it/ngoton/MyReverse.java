@@ -1,10 +1,34 @@
 package it.ngoton;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.text.BreakIterator;
+
 /**
  * Reverse a number or a text for learning purposes.
  */
 public class MyReverse {
+    /**
+     * Bytes mapped at a time by {@link #reverse(Path)}, two windows are mapped at once.
+     */
+    private static final int MAP_WINDOW = 64 << 20;
+    /**
+     * Bytes read at a time by {@link #reverse(Path, WritableByteChannel, boolean)}.
+     */
+    private static final int CHUNK = 1 << 20;
 
+    /**
+     * Reverses the decimal digits, keeping the sign: {@code 1200 -> 21}, {@code -123 -> -321}.
+     * @throws ArithmeticException if the reversed number does not fit in an {@code int}, e.g. {@code 1_999_999_999}
+     */
     public static int reverse(int num) {
         /**
          *      num = 1234
@@ -26,15 +50,52 @@ public class MyReverse {
          *    digit =    1
          * reversed = 4321
          */
+        int original = num;
         int reversed = 0;
         while (num != 0) {
             int digit = num % 10; // Extract the last digit
-            reversed = reversed * 10 + digit; // Append the digit to the reversed number
+            try {
+                reversed = Math.addExact(Math.multiplyExact(reversed, 10), digit); // Append the digit to the reversed number
+            }
+            catch (ArithmeticException e) {
+                throw new ArithmeticException("Reversed digits of " + original + " overflow int");
+            }
             num /= 10; // Remove the last digit from the original number
         }
         return reversed;
     }
 
+    /**
+     * Like {@link #reverse(int)} for {@code long}. For a negative number every digit {@code num % 10} is negative,
+     * so the reversed number gets the same sign.
+     * @throws ArithmeticException if the reversed number does not fit in a {@code long}
+     */
+    public static long reverse(long num) {
+        long original = num;
+        long reversed = 0;
+        while (num != 0) {
+            long digit = num % 10;
+            try {
+                reversed = Math.addExact(Math.multiplyExact(reversed, 10), digit);
+            }
+            catch (ArithmeticException e) {
+                throw new ArithmeticException("Reversed digits of " + original + " overflow long");
+            }
+            num /= 10;
+        }
+        return reversed;
+    }
+
+    /**
+     * Reverses the code points of the text.
+     * <p>A character outside of the BMP (emoji, ...) is a surrogate pair of 2 {@code char}s, swapping the {@code char}s
+     * puts the low surrogate before the high one. A second pass swaps such pairs back:
+     * <pre>
+     *   "a😀b"   = a, D83D, DE00, b
+     *   swapped  = b, DE00, D83D, a      invalid pair
+     *   fixed    = b, D83D, DE00, a      "b😀a"
+     * </pre>
+     */
     public static String reverse(String text) {
         char[] array = text.toCharArray();
         int left = 0;
@@ -46,6 +107,260 @@ public class MyReverse {
             left++;
             right--;
         }
+        for (int i = 0; i < array.length - 1; i++) {
+            if (Character.isLowSurrogate(array[i]) && Character.isHighSurrogate(array[i + 1])) {
+                char temp = array[i];
+                array[i] = array[i + 1];
+                array[i + 1] = temp;
+                i++;
+            }
+        }
         return String.valueOf(array);
     }
+
+    /**
+     * Reverses the user-perceived characters of the text: a letter stays followed by its combining accents
+     * (e + U+0301 = é), and a surrogate pair stays in order.
+     * <p>The clusters are the ones of {@link BreakIterator#getCharacterInstance()}: on Java 11 it does not join
+     * emoji sequences with zero width joiners (👨‍👩‍👧), those are reversed part by part.
+     */
+    public static String reverseGraphemes(String text) {
+        BreakIterator clusters = BreakIterator.getCharacterInstance();
+        clusters.setText(text);
+        StringBuilder reversed = new StringBuilder(text.length());
+        int end = clusters.last();
+        for (int start = clusters.previous(); start != BreakIterator.DONE; end = start, start = clusters.previous()) {
+            reversed.append(text, start, end);
+        }
+        return reversed.toString();
+    }
+
+    /**
+     * Reverses the code points of the UTF-8 text between the position and the limit of the buffer, in place.
+     * The position and the limit do not change.
+     * <p>Reverses the bytes, then each multi-byte sequence back into order: a sequence is now its continuation bytes
+     * ({@code 10xxxxxx}) followed by its lead byte.
+     * <pre>
+     *   "aé"      = 61 C3 A9
+     *   reversed  = A9 C3 61      continuation A9 then lead C3
+     *   fixed     = C3 A9 61      "éa"
+     * </pre>
+     * Malformed bytes are reversed like single-byte characters.
+     */
+    public static void reverse(ByteBuffer utf8) {
+        int from = utf8.position(), to = utf8.limit();
+        reverseBytes(utf8, from, to);
+        fixSequences(utf8, from, to, true);
+    }
+
+    /**
+     * Reverses the code points of a UTF-8 file in place, with memory-mapped windows so the file can be larger than
+     * the memory.
+     * <ol>
+     *     <li>Swaps a window at the start with a window at the end, moving both towards the middle
+     *     <li>Reverses the middle part that is left, shorter than 2 windows
+     *     <li>Fixes the multi-byte sequences like {@link #reverse(ByteBuffer)}, one window after the other; a sequence
+     *     cut by the end of a window is left for the next window
+     * </ol>
+     * The file is not consistent while this runs.
+     */
+    public static void reverse(Path file) throws IOException {
+        reverse(file, MAP_WINDOW);
+    }
+
+    static void reverse(Path file, int window) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = channel.size();
+            long low = 0, high = size;
+            while (high - low >= 2L * window) {
+                ByteBuffer front = channel.map(FileChannel.MapMode.READ_WRITE, low, window);
+                ByteBuffer back = channel.map(FileChannel.MapMode.READ_WRITE, high - window, window);
+                for (int i = 0, j = window - 1; i < window; i++, j--) {
+                    byte temp = front.get(i);
+                    front.put(i, back.get(j));
+                    back.put(j, temp);
+                }
+                low += window;
+                high -= window;
+            }
+            if (high > low) {
+                ByteBuffer middle = channel.map(FileChannel.MapMode.READ_WRITE, low, high - low);
+                reverseBytes(middle, 0, middle.limit());
+            }
+            for (long from = 0; from < size; ) {
+                int length = (int) Math.min(window, size - from);
+                ByteBuffer part = channel.map(FileChannel.MapMode.READ_WRITE, from, length);
+                from += fixSequences(part, 0, length, from + length == size);
+            }
+        }
+    }
+
+    /**
+     * Writes the UTF-8 file reversed to {@code out}, reading it from the end 1 MB at a time, so the memory used does not
+     * depend on the size of the file.
+     * <p>Each chunk starts at a code point: its start moves forward past continuation bytes, they are read again with
+     * the previous chunk. With {@code graphemes} it also moves past the characters that may continue a cluster of the
+     * previous chunk (combining marks, ...), and the chunk is reversed with {@link #reverseGraphemes(String)}; a chunk
+     * made only of such characters is read again twice as large.
+     * @param graphemes whether to keep grapheme clusters intact instead of only code points
+     * @return the number of bytes written
+     * @throws java.nio.charset.CharacterCodingException if {@code graphemes} is set and the file is not valid UTF-8
+     */
+    public static long reverse(Path file, WritableByteChannel out, boolean graphemes) throws IOException {
+        return reverse(file, out, graphemes, CHUNK);
+    }
+
+    static long reverse(Path file, WritableByteChannel out, boolean graphemes, int chunk) throws IOException {
+        CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPORT)
+                .onUnmappableCharacter(CodingErrorAction.REPORT);
+        ByteBuffer buffer = ByteBuffer.allocate(chunk);
+        long written = 0;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long end = channel.size();
+            int size = chunk;
+            while (end > 0) {
+                long start = Math.max(0, end - size);
+                if (buffer.capacity() < size) buffer = ByteBuffer.allocate(size);
+                buffer.clear().limit((int) (end - start));
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer, start + buffer.position()) < 0) throw new IOException(file + " was truncated");
+                }
+                int first = 0;
+                if (start > 0) {
+                    while (first < buffer.limit() - 1 && isContinuation(buffer.get(first))) {
+                        first++;
+                    }
+                }
+                buffer.position(first);
+                ByteBuffer reversed;
+                if (graphemes) {
+                    String text = decoder.decode(buffer).toString();
+                    if (start > 0) {
+                        int cluster = firstIndependentCluster(text);
+                        if (cluster == text.length()) {
+                            if (size > Integer.MAX_VALUE / 2) throw new IOException("Grapheme cluster longer than 1 GB in " + file);
+                            size *= 2;
+                            continue;
+                        }
+                        first += utf8Length(text, cluster);
+                        text = text.substring(cluster);
+                    }
+                    reversed = StandardCharsets.UTF_8.encode(CharBuffer.wrap(reverseGraphemes(text)));
+                }
+                else {
+                    reverse(buffer);
+                    reversed = buffer;
+                }
+                while (reversed.hasRemaining()) {
+                    written += out.write(reversed);
+                }
+                end = start + first;
+                size = chunk;
+            }
+        }
+        return written;
+    }
+
+    /**
+     * The index of the first cluster of the text that does not start with a character that may continue the cluster
+     * before it, {@code text.length()} if there is none.
+     */
+    private static int firstIndependentCluster(String text) {
+        BreakIterator clusters = BreakIterator.getCharacterInstance();
+        clusters.setText(text);
+        int cluster = clusters.first();
+        while (cluster != BreakIterator.DONE && cluster < text.length() && continuesCluster(text.codePointAt(cluster))) {
+            cluster = clusters.next();
+        }
+        return cluster == BreakIterator.DONE ? text.length() : cluster;
+    }
+
+    /**
+     * Whether the code point may belong to the cluster of the character before it: marks, joiners and variation
+     * selectors, emoji modifiers, {@code LF} after {@code CR}, Hangul vowels and final consonants, flag letters.
+     * Some are counted too many (a modifier letter like {@code ^}), that only moves the chunk start a little further.
+     */
+    private static boolean continuesCluster(int codePoint) {
+        switch (Character.getType(codePoint)) {
+            case Character.NON_SPACING_MARK:
+            case Character.ENCLOSING_MARK:
+            case Character.COMBINING_SPACING_MARK:
+            case Character.FORMAT:
+            case Character.MODIFIER_SYMBOL:
+                return true;
+            default :
+                return codePoint == '\n'
+                        || (codePoint >= 0x1160 && codePoint <= 0x11FF)
+                        || (codePoint >= 0x1F1E6 && codePoint <= 0x1F1FF);
+        }
+    }
+
+    private static void reverseBytes(ByteBuffer bytes, int from, int to) {
+        for (int i = from, j = to - 1; i < j; i++, j--) {
+            byte temp = bytes.get(i);
+            bytes.put(i, bytes.get(j));
+            bytes.put(j, temp);
+        }
+    }
+
+    /**
+     * Puts the reversed multi-byte sequences of {@code [from, to)} back into order.
+     * @param last whether {@code to} is the end of the text, otherwise a sequence cut by {@code to} is left as it is
+     * @return the end of the fixed part: {@code to}, or the start of the cut sequence
+     */
+    private static int fixSequences(ByteBuffer bytes, int from, int to, boolean last) {
+        int i = from;
+        while (i < to) {
+            if (!isContinuation(bytes.get(i))) {
+                i++;
+                continue;
+            }
+            int lead = i + 1;
+            while (lead < to && lead - i < 3 && isContinuation(bytes.get(lead))) {
+                lead++;
+            }
+            if (lead == to && !last) return i;
+            if (lead < to && sequenceLength(bytes.get(lead)) == lead - i + 1) {
+                reverseBytes(bytes, i, lead + 1);
+                i = lead + 1;
+            }
+            else {
+                i++; // malformed, left as single bytes
+            }
+        }
+        return to;
+    }
+
+    private static boolean isContinuation(byte b) {
+        return (b & 0xC0) == 0x80;
+    }
+
+    /**
+     * The number of bytes of the sequence starting with the lead byte {@code b}, 0 if it is not a lead byte.
+     */
+    private static int sequenceLength(byte b) {
+        if ((b & 0xE0) == 0xC0) return 2;
+        if ((b & 0xF0) == 0xE0) return 3;
+        if ((b & 0xF8) == 0xF0) return 4;
+        return 0;
+    }
+
+    /**
+     * The number of bytes of {@code text.substring(0, end)} in UTF-8.
+     */
+    private static int utf8Length(String text, int end) {
+        int length = 0;
+        for (int i = 0; i < end; i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) length += 1;
+            else if (c < 0x800) length += 2;
+            else if (Character.isHighSurrogate(c)) {
+                length += 4;
+                i++;
+            }
+            else length += 3;
+        }
+        return length;
+    }
 }
@@ -1,9 +1,24 @@
 package it.ngoton;
 
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.IntStream;
+
 /**
  * Swapping two numbers for learning purposes.
+ * <p>The static methods on arrays move the elements in place, without allocating: swap, reverse, rotate, permute and
+ * shuffle {@code int[]} and {@code long[]}. Each has a {@code parallel} variant for large arrays, which runs in the
+ * common {@link ForkJoinPool} and falls back to the sequential one below {@value #PARALLEL_MIN} elements.
  */
 public class MySwap {
+    /**
+     * Elements below which the {@code parallel} methods run sequentially, splitting would cost more than it saves.
+     */
+    static final int PARALLEL_MIN = 1 << 16;
+
     private final int a;
     private final int b;
 
@@ -17,7 +32,9 @@ public class MySwap {
      * @param a
      * @param b
      * @return Swap
+     * @deprecated allocates a {@code MySwap} to return the two values, use {@link #swap(int[], int, int)}
      */
+    @Deprecated
     public static MySwap swapXOR(int a, int b) {
         //          a = 0 0 0 0 1 0 1 0     10
         //          b = 0 0 0 1 1 1 1 0     30
@@ -28,11 +45,15 @@ public class MySwap {
     }
 
     /**
-     * Arithmetic operations to swap values without using a temporary variable (but it may gets overflow)
+     * Arithmetic operations to swap values without using a temporary variable.
+     * <p>{@code a + b} may overflow, but {@code int} arithmetic wraps around modulo <code>2<sup>32</sup></code>, so the
+     * subtractions wrap back and the result is still right.
      * @param a
      * @param b
      * @return Swap
+     * @deprecated allocates a {@code MySwap} to return the two values, use {@link #swap(int[], int, int)}
      */
+    @Deprecated
     public static MySwap swapAdd(int a, int b) {
         //          a = 10
         //          b = 30
@@ -49,4 +70,486 @@ public class MySwap {
     public int getB() {
         return b;
     }
+
+    /**
+     * Swaps {@code arr[i]} and {@code arr[j]} with a temporary variable: on arrays it is as fast as the XOR trick,
+     * and also right when {@code i == j} (XOR would set the element to 0).
+     */
+    public static void swap(int[] arr, int i, int j) {
+        int temp = arr[i];
+        arr[i] = arr[j];
+        arr[j] = temp;
+    }
+
+    public static void swap(long[] arr, int i, int j) {
+        long temp = arr[i];
+        arr[i] = arr[j];
+        arr[j] = temp;
+    }
+
+    /**
+     * Swaps the blocks {@code [i, i + length)} and {@code [j, j + length)}, element by element.
+     * @throws IllegalArgumentException if the blocks overlap
+     */
+    public static void swapBlocks(int[] arr, int i, int j, int length) {
+        checkBlocks(arr.length, i, j, length);
+        for (int k = 0; k < length; k++) {
+            swap(arr, i + k, j + k);
+        }
+    }
+
+    public static void swapBlocks(long[] arr, int i, int j, int length) {
+        checkBlocks(arr.length, i, j, length);
+        for (int k = 0; k < length; k++) {
+            swap(arr, i + k, j + k);
+        }
+    }
+
+    public static void parallelSwapBlocks(int[] arr, int i, int j, int length) {
+        checkBlocks(arr.length, i, j, length);
+        inChunks(length, (from, to) -> {
+            for (int k = from; k < to; k++) {
+                swap(arr, i + k, j + k);
+            }
+        });
+    }
+
+    public static void parallelSwapBlocks(long[] arr, int i, int j, int length) {
+        checkBlocks(arr.length, i, j, length);
+        inChunks(length, (from, to) -> {
+            for (int k = from; k < to; k++) {
+                swap(arr, i + k, j + k);
+            }
+        });
+    }
+
+    /**
+     * Reverses {@code [from, to)} with 2 pointers moving towards the middle.
+     */
+    public static void reverse(int[] arr, int from, int to) {
+        checkRange(arr.length, from, to);
+        for (int i = from, j = to - 1; i < j; i++, j--) {
+            swap(arr, i, j);
+        }
+    }
+
+    public static void reverse(long[] arr, int from, int to) {
+        checkRange(arr.length, from, to);
+        for (int i = from, j = to - 1; i < j; i++, j--) {
+            swap(arr, i, j);
+        }
+    }
+
+    /**
+     * Like {@link #reverse(int[], int, int)}: the first half is split in chunks, each swapped with its mirror.
+     */
+    public static void parallelReverse(int[] arr, int from, int to) {
+        checkRange(arr.length, from, to);
+        inChunks((to - from) / 2, (first, last) -> {
+            for (int k = first; k < last; k++) {
+                swap(arr, from + k, to - 1 - k);
+            }
+        });
+    }
+
+    public static void parallelReverse(long[] arr, int from, int to) {
+        checkRange(arr.length, from, to);
+        inChunks((to - from) / 2, (first, last) -> {
+            for (int k = first; k < last; k++) {
+                swap(arr, from + k, to - 1 - k);
+            }
+        });
+    }
+
+    /**
+     * Rotates {@code [from, to)} right by {@code distance}: the element at {@code from + k} moves to
+     * {@code from + (k + distance) mod length}, a negative distance rotates left. Uses 3 reversals, each element is
+     * swapped about once and the accesses are sequential.
+     * <pre>
+     *   [1 2 3 4 5], distance 2
+     *   reverse all          [5 4 3 2 1]
+     *   reverse first 2      [4 5 3 2 1]
+     *   reverse the rest     [4 5 1 2 3]
+     * </pre>
+     */
+    public static void rotate(int[] arr, int from, int to, int distance) {
+        checkRange(arr.length, from, to);
+        int shift = shift(to - from, distance);
+        if (shift == 0) return;
+        reverse(arr, from, to);
+        reverse(arr, from, from + shift);
+        reverse(arr, from + shift, to);
+    }
+
+    public static void rotate(long[] arr, int from, int to, int distance) {
+        checkRange(arr.length, from, to);
+        int shift = shift(to - from, distance);
+        if (shift == 0) return;
+        reverse(arr, from, to);
+        reverse(arr, from, from + shift);
+        reverse(arr, from + shift, to);
+    }
+
+    /**
+     * Like {@link #rotate(int[], int, int, int)} with {@link #parallelReverse(int[], int, int)}.
+     */
+    public static void parallelRotate(int[] arr, int from, int to, int distance) {
+        checkRange(arr.length, from, to);
+        int shift = shift(to - from, distance);
+        if (shift == 0) return;
+        parallelReverse(arr, from, to);
+        parallelReverse(arr, from, from + shift);
+        parallelReverse(arr, from + shift, to);
+    }
+
+    public static void parallelRotate(long[] arr, int from, int to, int distance) {
+        checkRange(arr.length, from, to);
+        int shift = shift(to - from, distance);
+        if (shift == 0) return;
+        parallelReverse(arr, from, to);
+        parallelReverse(arr, from, from + shift);
+        parallelReverse(arr, from + shift, to);
+    }
+
+    /**
+     * Like {@link #rotate(int[], int, int, int)} with the juggling algorithm: each element is moved exactly once,
+     * following the {@code gcd(length, distance)} cycles {@code k -> k + distance -> k + 2 * distance ...}.
+     * Fewer writes than 3 reversals, but the jumps of {@code distance} miss the cache on large arrays.
+     * <pre>
+     *   [1 2 3 4 5 6], distance 2, gcd = 2 cycles
+     *   cycle 0: 1 -> index 2, 3 -> index 4, 5 -> index 0    [5 2 1 4 3 6]
+     *   cycle 1: 2 -> index 3, 4 -> index 5, 6 -> index 1    [5 6 1 2 3 4]
+     * </pre>
+     */
+    public static void rotateJuggling(int[] arr, int from, int to, int distance) {
+        checkRange(arr.length, from, to);
+        int length = to - from;
+        int shift = shift(length, distance);
+        if (shift == 0) return;
+        int cycles = gcd(length, shift);
+        for (int cycle = 0; cycle < cycles; cycle++) {
+            rotateCycle(arr, from, length, shift, cycle);
+        }
+    }
+
+    public static void rotateJuggling(long[] arr, int from, int to, int distance) {
+        checkRange(arr.length, from, to);
+        int length = to - from;
+        int shift = shift(length, distance);
+        if (shift == 0) return;
+        int cycles = gcd(length, shift);
+        for (int cycle = 0; cycle < cycles; cycle++) {
+            rotateCycle(arr, from, length, shift, cycle);
+        }
+    }
+
+    private static void rotateCycle(int[] arr, int from, int length, int shift, int start) {
+        int value = arr[from + start];
+        int k = start;
+        do {
+            k += shift;
+            if (k >= length) k -= length;
+            int next = arr[from + k];
+            arr[from + k] = value;
+            value = next;
+        } while (k != start);
+    }
+
+    private static void rotateCycle(long[] arr, int from, int length, int shift, int start) {
+        long value = arr[from + start];
+        int k = start;
+        do {
+            k += shift;
+            if (k >= length) k -= length;
+            long next = arr[from + k];
+            arr[from + k] = value;
+            value = next;
+        } while (k != start);
+    }
+
+    /**
+     * Moves every element to its place in the permutation, {@code arr[i]} goes to {@code arr[permutation[i]]},
+     * by walking the cycles of the permutation: each element is read and written once, without a copy of the array.
+     * <pre>
+     *   arr = [a b c d], permutation = [2 0 1 3]
+     *   cycle from 0: a -> 2, c -> 1, b -> 0     [b c a d]
+     *   cycle from 3: d -> 3                      [b c a d]
+     * </pre>
+     * The visited entries of {@code permutation} are marked by flipping their bits ({@code ~p}, negative), and
+     * restored at the end, so it needs no visited array either.
+     * @throws IllegalArgumentException if {@code permutation} is not a permutation of {@code 0 .. arr.length - 1};
+     * {@code arr} is then partly permuted, {@code permutation} is restored
+     */
+    public static void applyPermutation(int[] arr, int[] permutation) {
+        checkLength(arr.length, permutation.length);
+        checkRange(permutation);
+        try {
+            for (int start = 0; start < arr.length; start++) {
+                if (permutation[start] < 0) continue;
+                int value = arr[start];
+                int i = start;
+                do {
+                    int target = nextInCycle(permutation, i, start);
+                    int next = arr[target];
+                    arr[target] = value;
+                    value = next;
+                    i = target;
+                } while (i != start);
+            }
+        }
+        finally {
+            restore(permutation);
+        }
+    }
+
+    public static void applyPermutation(long[] arr, int[] permutation) {
+        checkLength(arr.length, permutation.length);
+        checkRange(permutation);
+        try {
+            for (int start = 0; start < arr.length; start++) {
+                if (permutation[start] < 0) continue;
+                long value = arr[start];
+                int i = start;
+                do {
+                    int target = nextInCycle(permutation, i, start);
+                    long next = arr[target];
+                    arr[target] = value;
+                    value = next;
+                    i = target;
+                } while (i != start);
+            }
+        }
+        finally {
+            restore(permutation);
+        }
+    }
+
+    /**
+     * Like {@link #applyPermutation(int[], int[])}, but the cycles can be of any length, so they are not split:
+     * copies the array (extra space n) and writes every element to its place from the copy in parallel chunks.
+     */
+    public static void parallelApplyPermutation(int[] arr, int[] permutation) {
+        checkLength(arr.length, permutation.length);
+        if (arr.length < PARALLEL_MIN) {
+            applyPermutation(arr, permutation);
+            return;
+        }
+        checkPermutation(permutation);
+        int[] copy = arr.clone();
+        inChunks(arr.length, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                arr[permutation[i]] = copy[i];
+            }
+        });
+    }
+
+    public static void parallelApplyPermutation(long[] arr, int[] permutation) {
+        checkLength(arr.length, permutation.length);
+        if (arr.length < PARALLEL_MIN) {
+            applyPermutation(arr, permutation);
+            return;
+        }
+        checkPermutation(permutation);
+        long[] copy = arr.clone();
+        inChunks(arr.length, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                arr[permutation[i]] = copy[i];
+            }
+        });
+    }
+
+    /**
+     * Marks {@code permutation[i]} visited and returns it.
+     * @throws IllegalArgumentException if the target was reached already without closing the cycle
+     */
+    private static int nextInCycle(int[] permutation, int i, int start) {
+        int target = permutation[i];
+        permutation[i] = ~target;
+        if (target != start && permutation[target] < 0) {
+            throw new IllegalArgumentException("Not a permutation: " + target + " twice");
+        }
+        return target;
+    }
+
+    /**
+     * Before marking, so no target is negative already.
+     */
+    private static void checkRange(int[] permutation) {
+        for (int i = 0; i < permutation.length; i++) {
+            if (permutation[i] < 0 || permutation[i] >= permutation.length) {
+                throw new IllegalArgumentException("Not a permutation: " + permutation[i] + " at index " + i);
+            }
+        }
+    }
+
+    private static void restore(int[] permutation) {
+        for (int i = 0; i < permutation.length; i++) {
+            if (permutation[i] < 0) permutation[i] = ~permutation[i];
+        }
+    }
+
+    /**
+     * Every target appears once: a bit per index, set with compare-and-set by the chunks in parallel.
+     */
+    private static void checkPermutation(int[] permutation) {
+        AtomicLongArray seen = new AtomicLongArray((permutation.length + 63) >>> 6);
+        inChunks(permutation.length, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                int target = permutation[i];
+                if (target < 0 || target >= permutation.length) {
+                    throw new IllegalArgumentException("Not a permutation: " + target + " at index " + i);
+                }
+                long bit = 1L << target;
+                long word;
+                do {
+                    word = seen.get(target >>> 6);
+                    if ((word & bit) != 0) {
+                        throw new IllegalArgumentException("Not a permutation: " + target + " twice");
+                    }
+                } while (!seen.compareAndSet(target >>> 6, word, word | bit));
+            }
+        });
+    }
+
+    /**
+     * Fisher-Yates: for each index from the end, swaps it with a random index at or before it, every order is
+     * equally likely.
+     */
+    public static void shuffle(int[] arr, Random random) {
+        for (int i = arr.length - 1; i > 0; i--) {
+            swap(arr, i, random.nextInt(i + 1));
+        }
+    }
+
+    public static void shuffle(long[] arr, Random random) {
+        for (int i = arr.length - 1; i > 0; i--) {
+            swap(arr, i, random.nextInt(i + 1));
+        }
+    }
+
+    /**
+     * MergeShuffle (Bacher, Bodini, Hollender, Lumbroso 2015): shuffles both halves in parallel, then merges them by
+     * coin flips, in place and with every order still equally likely.
+     * <ol>
+     *     <li>Below {@value #PARALLEL_MIN} elements: Fisher-Yates
+     *     <li>Merge: a coin picks the next element from the left half (stays) or the right half (swapped in);
+     *     when the picked half is empty, the rest of the other half is inserted at random places (Fisher-Yates steps)
+     * </ol>
+     * Each task gets its own {@link SplittableRandom} split from {@code random}.
+     */
+    public static void parallelShuffle(int[] arr, SplittableRandom random) {
+        ForkJoinPool.commonPool().invoke(new ShuffleTask(arr, null, 0, arr.length, random));
+    }
+
+    public static void parallelShuffle(long[] arr, SplittableRandom random) {
+        ForkJoinPool.commonPool().invoke(new ShuffleTask(null, arr, 0, arr.length, random));
+    }
+
+    private static class ShuffleTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final int[] ints;
+        private final long[] longs;
+        private final int from;
+        private final int to;
+        private final SplittableRandom random;
+
+        ShuffleTask(int[] ints, long[] longs, int from, int to, SplittableRandom random) {
+            this.ints = ints;
+            this.longs = longs;
+            this.from = from;
+            this.to = to;
+            this.random = random;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from < PARALLEL_MIN) {
+                for (int i = to - 1; i > from; i--) {
+                    swap(i, from + random.nextInt(i - from + 1));
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new ShuffleTask(ints, longs, from, middle, random.split()),
+                    new ShuffleTask(ints, longs, middle, to, random.split()));
+            merge(middle);
+        }
+
+        private void merge(int middle) {
+            int i = from, j = middle;
+            while (true) {
+                if (random.nextBoolean()) {
+                    if (i == j) break;
+                }
+                else {
+                    if (j == to) break;
+                    swap(i, j);
+                    j++;
+                }
+                i++;
+            }
+            for (; i < to; i++) {
+                swap(i, from + random.nextInt(i - from + 1));
+            }
+        }
+
+        private void swap(int i, int j) {
+            if (ints != null) MySwap.swap(ints, i, j);
+            else MySwap.swap(longs, i, j);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Chunk {
+        void run(int from, int to);
+    }
+
+    /**
+     * Splits {@code [0, length)} in chunks run in parallel, a single chunk below {@link #PARALLEL_MIN}.
+     */
+    private static void inChunks(int length, Chunk chunk) {
+        if (length < PARALLEL_MIN) {
+            chunk.run(0, length);
+            return;
+        }
+        int chunks = Math.max(1, Math.min(length / (PARALLEL_MIN / 4), 4 * ForkJoinPool.getCommonPoolParallelism()));
+        IntStream.range(0, chunks).parallel()
+                .forEach(c -> chunk.run((int) ((long) length * c / chunks), (int) ((long) length * (c + 1) / chunks)));
+    }
+
+    /**
+     * {@code distance} as a right rotation in {@code [0, length)}.
+     */
+    private static int shift(int length, int distance) {
+        return length == 0 ? 0 : Math.floorMod(distance, length);
+    }
+
+    private static int gcd(int a, int b) {
+        while (b != 0) {
+            int r = a % b;
+            a = b;
+            b = r;
+        }
+        return a;
+    }
+
+    private static void checkRange(int length, int from, int to) {
+        if (from < 0 || to > length || from > to) {
+            throw new IndexOutOfBoundsException("Range [" + from + ", " + to + ") of an array of " + length);
+        }
+    }
+
+    private static void checkBlocks(int length, int i, int j, int blockLength) {
+        checkRange(length, i, i + blockLength);
+        checkRange(length, j, j + blockLength);
+        if (i != j && Math.abs(i - j) < blockLength) {
+            throw new IllegalArgumentException("Blocks at " + i + " and " + j + " of " + blockLength + " overlap");
+        }
+    }
+
+    private static void checkLength(int length, int permutationLength) {
+        if (length != permutationLength) {
+            throw new IllegalArgumentException("Permutation of " + permutationLength + " for an array of " + length);
+        }
+    }
 }
@@ -0,0 +1,223 @@
+package it.ngoton;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+import java.util.Random;
+import java.util.function.Supplier;
+
+/**
+ * Crossover points of the algorithms, which depend on the CPU they run on.
+ * <ul>
+ *     <li>{@code karatsuba.threshold}: digits from which {@link MyBigInteger#multiply} uses Karatsuba instead of the
+ *     schoolbook method
+ *     <li>{@code parallel.threshold}: terms from which the binary splitting of {@link MyConstants} forks
+ * </ul>
+ * Nothing is measured or read from disk unless asked for. The values in use are the defaults below, replaced by:
+ * <ol>
+ *     <li>the system property {@code -Dit.ngoton.tuning.karatsuba.threshold=64}, which always wins
+ *     <li>the values of {@link #load(Path)}: the tuning file written by {@link #calibrate()}, ignored if it was
+ *     calibrated on a machine with another CPU count
+ *     <li>the values measured by {@link #calibrate()}
+ * </ol>
+ * <p>Calibration times the candidates on random operands for a few seconds. Run it once per host with
+ * {@code java it.ngoton.MyTuning}, then call {@link #load()} at startup: it only reads the small properties file.
+ */
+public final class MyTuning {
+    private static final String PREFIX = "it.ngoton.tuning.";
+    private static final String KARATSUBA = "karatsuba.threshold";
+    private static final String PARALLEL = "parallel.threshold";
+    private static final String PROCESSORS = "processors";
+    /**
+     * A conservative crossover: calibration finds 48 to 64 digits on current x86-64 hosts, and above the crossover
+     * Karatsuba only wins by a few percent at first, so a threshold a little too high costs little.
+     */
+    static final int DEFAULT_KARATSUBA_THRESHOLD = 64;
+    static final int DEFAULT_PARALLEL_THRESHOLD = 64;
+    /**
+     * Karatsuba splits until the halves are shorter than this, see {@link MyBigInteger#karatsuba}.
+     */
+    private static final int MIN_KARATSUBA_THRESHOLD = 4;
+    private static final int[] KARATSUBA_CANDIDATES = {16, 24, 32, 48, 64, 96, 128, 192, 256, 384, 512, 768, 1024};
+    private static final int[] PARALLEL_CANDIDATES = {8, 16, 32, 64, 128, 256, 512};
+
+    static volatile int karatsubaThreshold = override(KARATSUBA, DEFAULT_KARATSUBA_THRESHOLD, MIN_KARATSUBA_THRESHOLD);
+    static volatile int parallelThreshold = override(PARALLEL, DEFAULT_PARALLEL_THRESHOLD, 1);
+
+    private MyTuning() {
+    }
+
+    /**
+     * Usage: {@code MyTuning [file]}, calibrates this host and writes the tuning file.
+     */
+    public static void main(String[] args) throws IOException {
+        Path file = args.length > 0 ? Paths.get(args[0]) : tuningFile();
+        Properties tuning = calibrate();
+        save(tuning, file);
+        System.out.println("Saved " + tuning + " to " + file);
+    }
+
+    public static int karatsubaThreshold() {
+        return karatsubaThreshold;
+    }
+
+    public static int parallelThreshold() {
+        return parallelThreshold;
+    }
+
+    /**
+     * Loads the tuning file, {@code ~/.ngoton/tuning.properties} or {@code -Dit.ngoton.tuning.file=...}.
+     * @see #load(Path)
+     */
+    public static boolean load() {
+        return load(tuningFile());
+    }
+
+    /**
+     * Uses the values of a tuning file written by {@link #main} from now on.
+     * <p>The system property overrides still win over the values of the file.
+     * @return whether the file exists and was calibrated for this CPU count; otherwise nothing changes
+     */
+    public static synchronized boolean load(Path file) {
+        if (!Files.isRegularFile(file)) return false;
+        Properties tuning = new Properties();
+        try (InputStream in = Files.newInputStream(file)) {
+            tuning.load(in);
+        }
+        catch (IOException e) {
+            System.err.println("Cannot read the tuning file " + file + ": " + e);
+            return false;
+        }
+        String processors = Integer.toString(Runtime.getRuntime().availableProcessors());
+        if (!processors.equals(tuning.getProperty(PROCESSORS))) return false;
+        publish(parse(tuning.getProperty(KARATSUBA), karatsubaThreshold, MIN_KARATSUBA_THRESHOLD),
+                parse(tuning.getProperty(PARALLEL), parallelThreshold, 1));
+        return true;
+    }
+
+    /**
+     * Times the candidate thresholds on this host and uses the best ones from now on.
+     * <p>The measurements run with their own thresholds: multiplications running meanwhile keep the current values
+     * until the end, when both are replaced. The system property overrides still win over the measured values.
+     * @return the chosen values, in the format of the tuning file
+     */
+    public static synchronized Properties calibrate() {
+        int karatsuba = calibrateKaratsuba();
+        int parallel = calibrateParallel();
+        Properties tuning = new Properties();
+        tuning.setProperty(KARATSUBA, Integer.toString(karatsuba));
+        tuning.setProperty(PARALLEL, Integer.toString(parallel));
+        tuning.setProperty(PROCESSORS, Integer.toString(Runtime.getRuntime().availableProcessors()));
+        publish(karatsuba, parallel);
+        return tuning;
+    }
+
+    private static void publish(int karatsuba, int parallel) {
+        karatsubaThreshold = override(KARATSUBA, karatsuba, MIN_KARATSUBA_THRESHOLD);
+        parallelThreshold = override(PARALLEL, parallel, 1);
+    }
+
+    /**
+     * The smallest size where one Karatsuba step (with schoolbook halves) beats the schoolbook method,
+     * twice in a row so one noisy measurement does not decide.
+     */
+    private static int calibrateKaratsuba() {
+        Random random = new Random(1);
+        int wins = 0;
+        for (int i = 0; i < KARATSUBA_CANDIDATES.length; i++) {
+            int n = KARATSUBA_CANDIDATES[i];
+            int[] a = randomDigits(random, n), b = randomDigits(random, n);
+            double schoolbook = bestNanos(() -> MyBigInteger.schoolbook(a, b));
+            double karatsuba = bestNanos(() -> MyBigInteger.karatsuba(a, b, n));
+            wins = karatsuba < schoolbook ? wins + 1 : 0;
+            if (wins == 2) return KARATSUBA_CANDIDATES[i - 1];
+        }
+        return KARATSUBA_CANDIDATES[KARATSUBA_CANDIDATES.length - 1];
+    }
+
+    /**
+     * The threshold giving the fastest binary splitting of the series of {@code e}, large enough for forking to matter.
+     */
+    private static int calibrateParallel() {
+        int best = DEFAULT_PARALLEL_THRESHOLD;
+        double bestNanos = Double.MAX_VALUE;
+        for (int candidate : PARALLEL_CANDIDATES) {
+            double nanos = bestNanos(() -> MyConstants.splitE(2048, candidate));
+            if (nanos < bestNanos) {
+                bestNanos = nanos;
+                best = candidate;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Fastest of 5 measurements after a warmup, each repeating the operation for at least 10 ms.
+     */
+    private static double bestNanos(Supplier<?> operation) {
+        for (int i = 0; i < 3; i++) {
+            operation.get();
+        }
+        double best = Double.MAX_VALUE;
+        for (int round = 0; round < 5; round++) {
+            long start = System.nanoTime();
+            long elapsed;
+            int ops = 0;
+            do {
+                operation.get();
+                ops++;
+                elapsed = System.nanoTime() - start;
+            } while (elapsed < 10_000_000L);
+            best = Math.min(best, (double) elapsed / ops);
+        }
+        return best;
+    }
+
+    private static int[] randomDigits(Random random, int length) {
+        int[] digits = new int[length];
+        for (int i = 0; i < length; i++) {
+            digits[i] = random.nextInt(10);
+        }
+        digits[length - 1] = 1 + random.nextInt(9);
+        return digits;
+    }
+
+    private static Path tuningFile() {
+        String file = System.getProperty(PREFIX + "file");
+        if (file != null) return Paths.get(file);
+        return Paths.get(System.getProperty("user.home"), ".ngoton", "tuning.properties");
+    }
+
+    private static int override(String name, int fallback, int min) {
+        return parse(System.getProperty(PREFIX + name), fallback, min);
+    }
+
+    private static int parse(String value, int fallback, int min) {
+        if (value == null) return fallback;
+        try {
+            return Math.max(min, Integer.parseInt(value.trim()));
+        }
+        catch (NumberFormatException e) {
+            System.err.println("Ignoring tuning value " + value + ": not a number");
+            return fallback;
+        }
+    }
+
+    /**
+     * Writes to a temporary file first, so a concurrent startup never reads half a file.
+     */
+    static void save(Properties tuning, Path file) throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temporary = Files.createTempFile(directory, "tuning", ".tmp");
+        try (OutputStream out = Files.newOutputStream(temporary)) {
+            tuning.store(out, "MyTuning calibration, os.arch=" + System.getProperty("os.arch"));
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -0,0 +1,27 @@
+package it.ngoton;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event of an arithmetic operation slower than {@link MyMetrics#SLOW_NANOS}, the duration is the event's own.
+ */
+@Name("it.ngoton.SlowOperation")
+@Label("Slow Operation")
+@Category("Big Numbers")
+@Description("MyBigInteger or MyBigDecimal operation slower than it.ngoton.metrics.slowMillis")
+class SlowOperationEvent extends Event {
+    @Label("Operation")
+    String operation;
+
+    @Label("Operand Digits")
+    int operandDigits;
+
+    @Label("Allocated")
+    @DataAmount
+    long allocatedBytes;
+}
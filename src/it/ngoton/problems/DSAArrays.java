@@ -1,9 +1,27 @@
 package it.ngoton.problems;
 
+import it.ngoton.MySwap;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.Arrays;
-import java.util.HashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
 
 public class DSAArrays {
+    /**
+     * Kích thước mỗi lần map file (memory-mapped file), bội số của 4 byte.
+     */
+    private static final long MAP_WINDOW = 256L << 20;
+
     /**
      * Tìm số bị thiếu trong dãy số từ 1 - N
      * Input: list[] = {1, 2, 4, 6, 3, 7, 8, 10, 5}
@@ -17,11 +35,164 @@ public class DSAArrays {
      * </u>
      */
     static int findMissingNumber(int[] arr, int n) {
-        int sum = (1+n)*n/2;
+        long sum = (1L+n)*n/2; // long: (1+n)*n tràn int khi n > 65535
         for (int i = 0; i < n-1; i++) {
             sum -= arr[i];
         }
-        return sum;
+        return (int) sum;
+    }
+
+    /**
+     * Tìm số bị thiếu bằng XOR, không cần tính tổng nên không bao giờ tràn số.
+     * <u>
+     *     <li>x ^ x = 0 và x ^ 0 = x, thứ tự không quan trọng
+     *     <li>(1 ^ 2 ^ ... ^ N) ^ (các phần tử của mảng) = số bị thiếu, vì các số còn lại đều xuất hiện 2 lần
+     *     <li>1 ^ 2 ^ ... ^ N có công thức theo N % 4, xem {@link #xorUpTo(int)}
+     * </u>
+     */
+    static int findMissingNumberXor(int[] arr, int n) {
+        int xor = xorUpTo(n);
+        for (int i = 0; i < n-1; i++) {
+            xor ^= arr[i];
+        }
+        return xor;
+    }
+
+    /**
+     * Như {@link #findMissingNumberXor(int[], int)}, đọc dần từng số từ stream (có thể là parallel stream),
+     * không cần giữ cả dãy trong bộ nhớ.
+     */
+    static int findMissingNumber(IntStream values, int n) {
+        return xorUpTo(n) ^ values.reduce(0, (a, b) -> a ^ b); // 0 là phần tử trung hòa, mỗi luồng bắt đầu từ 0
+    }
+
+    /**
+     * Như trên, đọc các số từ position tới limit của buffer (không thay đổi position).
+     */
+    static int findMissingNumber(IntBuffer values, int n) {
+        int xor = xorUpTo(n);
+        for (int i = values.position(); i < values.limit(); i++) {
+            xor ^= values.get(i);
+        }
+        return xor;
+    }
+
+    /**
+     * Như trên, đọc các số int (4 byte, thứ tự byte {@code order}) của một file, qua memory-mapped file.
+     * <p>Mỗi lần chỉ map 1 cửa sổ 256MB nên file có thể lớn hơn giới hạn 2GB của 1 lần map.
+     */
+    static int findMissingNumber(Path file, ByteOrder order, int n) throws IOException {
+        int xor = xorUpTo(n);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size() & ~3L;
+            for (long position = 0; position < size; position += MAP_WINDOW) {
+                long length = Math.min(MAP_WINDOW, size - position);
+                IntBuffer ints = channel.map(FileChannel.MapMode.READ_ONLY, position, length).order(order).asIntBuffer();
+                while (ints.hasRemaining()) {
+                    xor ^= ints.get();
+                }
+            }
+        }
+        return xor;
+    }
+
+    /**
+     * Như {@link #findMissingNumberXor(int[], int)}, chạy song song với fork/join: {@link XorTask} chia đôi đoạn
+     * cần XOR cho tới khi đủ nhỏ.
+     */
+    static int parallelFindMissingNumber(int[] arr, int n) {
+        return xorUpTo(n) ^ ForkJoinPool.commonPool().invoke(new XorTask(arr, 0, n - 1));
+    }
+
+    /**
+     * <code>1 ^ 2 ^ ... ^ n</code>, lặp lại theo chu kỳ 4:
+     * <pre>
+     *   n        1  2  3  4  5  6  7  8
+     *   1^..^n   1  3  0  4  1  7  0  8
+     *   n % 4 = 0 → n,  1 → 1,  2 → n + 1,  3 → 0
+     * </pre>
+     */
+    static int xorUpTo(int n) {
+        switch (n & 3) {
+            case 0: return n;
+            case 1: return 1;
+            case 2: return n + 1;
+            default : return 0;
+        }
+    }
+
+    /**
+     * XOR của arr[from .. to), chia đôi cho tới khi đoạn nhỏ hơn {@code THRESHOLD} phần tử.
+     */
+    private static class XorTask extends RecursiveTask<Integer> {
+        private static final long serialVersionUID = 1L;
+        private static final int THRESHOLD = 1 << 16;
+        private final int[] arr;
+        private final int from;
+        private final int to;
+
+        private XorTask(int[] arr, int from, int to) {
+            this.arr = arr;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Integer compute() {
+            if (to - from <= THRESHOLD) {
+                int xor = 0;
+                for (int i = from; i < to; i++) {
+                    xor ^= arr[i];
+                }
+                return xor;
+            }
+            int middle = (from + to) >>> 1;
+            XorTask left = new XorTask(arr, from, middle);
+            left.fork();
+            int right = new XorTask(arr, middle, to).compute();
+            return left.join() ^ right;
+        }
+    }
+
+    /**
+     * Tìm tất cả các số bị thiếu trong dãy 1 - N (thiếu k số, mảng có N - k phần tử).
+     * Input: list[] = {1, 2, 4, 6, 3, 8}, N = 10
+     * Output: [5, 7, 9, 10]
+     * <u>
+     *     <li>Bitmap N bit: bật bit của mỗi số đã gặp
+     *     <li>Các bit còn tắt là các số bị thiếu, theo thứ tự tăng dần
+     * </u>
+     * @throws IllegalArgumentException nếu có giá trị ngoài khoảng 1 - N
+     */
+    static int[] findMissingNumbers(int[] arr, int n) {
+        return findMissingNumbers(IntStream.of(arr), n);
+    }
+
+    /**
+     * Như trên, đọc dần từng số từ stream (vd. ID của các message, để tìm các khoảng trống).
+     */
+    static int[] findMissingNumbers(IntStream values, int n) {
+        long[] seen = new long[(n + 63) >>> 6];
+        values.sequential().forEach(value -> {
+            int bit = bitOf(value, n);
+            seen[bit >>> 6] |= 1L << bit;
+        });
+        int count = n;
+        for (long word : seen) {
+            count -= Long.bitCount(word);
+        }
+        int[] missing = new int[count];
+        int j = 0;
+        for (int w = 0; w < seen.length; w++) {
+            long unseen = ~seen[w];
+            if (w == seen.length - 1 && (n & 63) != 0) {
+                unseen &= (1L << n) - 1; // bỏ các bit sau N trong phần tử long cuối
+            }
+            for (; unseen != 0; unseen &= unseen - 1) {
+                missing[j++] = (w << 6) + Long.numberOfTrailingZeros(unseen) + 1;
+            }
+        }
+        return missing;
     }
 
     /**
@@ -46,6 +217,151 @@ public class DSAArrays {
         return -1;
     }
 
+    /**
+     * Như {@link #findDuplicateNumber(int[])}, mảng tần số được thay bằng bitset: 1 bit cho mỗi giá trị thay vì 1 int.
+     * <u>
+     *     <li>Giá trị v ứng với bit (v-1) % 64 của phần tử long thứ (v-1) / 64
+     *     <li>N = 100 triệu: int[] cần 400MB, long[] chỉ cần 12.5MB
+     * </u>
+     * @throws IllegalArgumentException nếu có giá trị ngoài khoảng 1 - N
+     */
+    static int findDuplicateNumberBitset(int[] arr) {
+        int n = arr.length;
+        long[] seen = new long[(n + 63) >>> 6];
+        for (int value : arr) {
+            int bit = bitOf(value, n);
+            long mask = 1L << bit; // shift của long chỉ dùng 6 bit thấp: bit % 64
+            if ((seen[bit >>> 6] & mask) != 0) {
+                return value;
+            }
+            seen[bit >>> 6] |= mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Tìm số trùng lặp, chạy song song trên các đoạn của mảng.
+     * <u>
+     *     <li>Bitset dùng chung là AtomicLongArray, bật bit bằng compareAndSet nên các luồng không ghi đè lẫn nhau
+     *     <li>Luồng nào gặp bit đã bật thì ghi lại số đó, các luồng khác dừng sớm
+     * </u>
+     * Kết quả là một số trùng lặp bất kỳ, không nhất thiết là số đầu tiên như bản tuần tự.
+     * (Floyd không chia được thành các đoạn độc lập vì mỗi bước phụ thuộc vào bước trước.)
+     * @throws IllegalArgumentException nếu có giá trị ngoài khoảng 1 - N
+     */
+    static int parallelFindDuplicateNumber(int[] arr) {
+        int n = arr.length;
+        AtomicLongArray seen = new AtomicLongArray((n + 63) >>> 6);
+        AtomicInteger found = new AtomicInteger(-1);
+        int chunks = chunks(n);
+        IntStream.range(0, chunks).parallel().forEach(c -> {
+            for (int i = chunkStart(n, chunks, c), end = chunkStart(n, chunks, c + 1); i < end; i++) {
+                if ((i & 4095) == 0 && found.get() != -1) return;
+                if (!setBit(seen, bitOf(arr[i], n))) {
+                    found.compareAndSet(-1, arr[i]);
+                    return;
+                }
+            }
+        });
+        return found.get();
+    }
+
+    /**
+     * Tìm tất cả các số trùng lặp trong mảng có giá trị từ 1 - N.
+     * Input: list[] = {4,3,2,7,8,2,3,1}
+     * Output: [2,3]
+     * <u>
+     *     <li>2 bitset: seen (đã gặp) và duplicated (gặp từ lần thứ 2)
+     *     <li>Duyệt các bit của duplicated để lấy kết quả, mỗi số 1 lần, theo thứ tự tăng dần
+     * </u>
+     * @throws IllegalArgumentException nếu có giá trị ngoài khoảng 1 - N
+     */
+    static int[] findAllDuplicates(int[] arr) {
+        int n = arr.length;
+        long[] seen = new long[(n + 63) >>> 6];
+        long[] duplicated = new long[seen.length];
+        for (int value : arr) {
+            int bit = bitOf(value, n);
+            long mask = 1L << bit;
+            if ((seen[bit >>> 6] & mask) != 0) {
+                duplicated[bit >>> 6] |= mask;
+            }
+            seen[bit >>> 6] |= mask;
+        }
+        return valuesOf(duplicated);
+    }
+
+    /**
+     * Như {@link #findAllDuplicates(int[])}, chạy song song với 2 bitset AtomicLongArray. Cùng kết quả.
+     */
+    static int[] parallelFindAllDuplicates(int[] arr) {
+        int n = arr.length;
+        AtomicLongArray seen = new AtomicLongArray((n + 63) >>> 6);
+        AtomicLongArray duplicated = new AtomicLongArray(seen.length());
+        int chunks = chunks(n);
+        IntStream.range(0, chunks).parallel().forEach(c -> {
+            for (int i = chunkStart(n, chunks, c), end = chunkStart(n, chunks, c + 1); i < end; i++) {
+                int bit = bitOf(arr[i], n);
+                if (!setBit(seen, bit)) {
+                    setBit(duplicated, bit);
+                }
+            }
+        });
+        long[] words = new long[duplicated.length()];
+        for (int i = 0; i < words.length; i++) {
+            words[i] = duplicated.get(i);
+        }
+        return valuesOf(words);
+    }
+
+    private static int bitOf(int value, int n) {
+        if (value < 1 || value > n) throw new IllegalArgumentException("Value " + value + " is not in 1.." + n);
+        return value - 1;
+    }
+
+    /**
+     * Bật bit, trả về false nếu bit đã được bật trước đó (bởi luồng này hoặc luồng khác).
+     */
+    private static boolean setBit(AtomicLongArray bits, int bit) {
+        int word = bit >>> 6;
+        long mask = 1L << bit;
+        long old = bits.get(word);
+        while ((old & mask) == 0) {
+            if (bits.compareAndSet(word, old, old | mask)) return true;
+            old = bits.get(word);
+        }
+        return false;
+    }
+
+    /**
+     * Các giá trị (bit + 1) của các bit đang bật, tăng dần.
+     */
+    private static int[] valuesOf(long[] words) {
+        int count = 0;
+        for (long word : words) {
+            count += Long.bitCount(word);
+        }
+        int[] values = new int[count];
+        int j = 0;
+        for (int w = 0; w < words.length; w++) {
+            for (long word = words[w]; word != 0; word &= word - 1) { // xóa bit thấp nhất sau mỗi lần
+                values[j++] = (w << 6) + Long.numberOfTrailingZeros(word) + 1;
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Số đoạn khi chia mảng cho các luồng: vài đoạn mỗi luồng, mỗi đoạn ít nhất 4096 phần tử.
+     */
+    private static int chunks(int length) {
+        return Math.max(1, Math.min(length / 4096, 4 * ForkJoinPool.commonPool().getParallelism()));
+    }
+
+    private static int chunkStart(int length, int chunks, int chunk) {
+        return (int) ((long) length * chunk / chunks);
+    }
+
     /**
      * Tìm số trùng lặp trong dãy số từ 1 - N, gồm n + 1 số. Vì có nhiều hơn n phần tử nên ít nhất 1 số bị lặp lại
      * Input: list[] = {3,1,3,4,2}
@@ -88,17 +404,192 @@ public class DSAArrays {
      * </u>
      */
     static void findPairsEqualsToK(int[] arr, int k) {
-        HashMap<Integer, Integer> elementIndexMap = new HashMap<>();
+        findPairsEqualsToK(arr, k, (first, second) -> System.out.println(first + " " + second));
+    }
+
+    /**
+     * Như {@link #findPairsEqualsToK(int[], int)} nhưng trả các cặp về {@code sink} thay vì in ra.
+     * <u>
+     *     <li>Dùng {@link IntIntHashMap} (int → int, không boxing) thay cho HashMap&lt;Integer, Integer&gt;
+     *     <li>Map lưu vị trí cuối cùng của mỗi số, chỉ 1 lần tra cứu cho mỗi phần tử
+     *     <li>k - arr[i] được tính bằng long như bản đã sort: nằm ngoài khoảng của int thì không có cặp
+     * </u>
+     * @return số cặp tìm được
+     */
+    static int findPairsEqualsToK(int[] arr, int k, IntPairSink sink) {
+        IntIntHashMap elementIndexMap = new IntIntHashMap(arr.length);
         for (int i = 0; i < arr.length; i++) {
             elementIndexMap.put(arr[i], i);
         }
+        int count = 0;
         for (int i = 0; i < arr.length; i++) {
-            // we have used elementIndexMap.get(X-arr[i])!=i to avoid using same element twice
-            if (elementIndexMap.get(k - arr[i]) != null && elementIndexMap.get(k - arr[i]) != i)
-            {
-                System.out.println(arr[i] + " " + (k - arr[i]));
+            long partner = (long) k - arr[i];
+            if (partner != (int) partner) continue;
+            int index = elementIndexMap.get((int) partner, -1);
+            if (index != -1 && index != i) {
+                sink.accept(arr[i], (int) partner);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Như trên, ghi các cặp vào mảng {@code pairs}: {@code pairs[2j], pairs[2j+1]} là cặp thứ j.
+     * Nếu mảng không đủ chỗ thì chỉ ghi các cặp đầu tiên.
+     * @return số cặp tìm được (có thể lớn hơn {@code pairs.length / 2})
+     */
+    static int findPairsEqualsToK(int[] arr, int k, int[] pairs) {
+        int[] written = {0};
+        return findPairsEqualsToK(arr, k, (first, second) -> {
+            int j = written[0];
+            if (j + 1 < pairs.length) {
+                pairs[j] = first;
+                pairs[j + 1] = second;
+                written[0] = j + 2;
+            }
+        });
+    }
+
+    /**
+     * Tìm các cặp số có tổng = k, không extra space. (Array được phép sort)
+     * Input: list[] = {3,1,3,4,2,5,1}, sort: {1,1,2,3,3,4,5}
+     * Output: 1 5, 1 5, 5 1, 2 4, 4 2, 3 3
+     * <u>
+     *     <li>Sort mảng, dùng 2 con trỏ left (đầu mảng), right (cuối mảng)
+     *     <li>Tổng &lt; k thì left++, tổng &gt; k thì right--
+     *     <li>Tổng = k: x = arr[left] xuất hiện a lần, y = arr[right] xuất hiện b lần
+     *     ⇒ a cặp (x, y) và b cặp (y, x), bỏ qua cả 2 nhóm
+     *     <li>x = y (x + x = k) xuất hiện c lần ⇒ c - 1 cặp (x, x), như bản dùng Map (phần tử cuối không có vị trí khác)
+     * </u>
+     * Cùng các cặp với bản dùng Map nhưng theo thứ tự của mảng đã sort. Tổng được tính bằng long nên không bị tràn số.
+     * @return số cặp tìm được
+     */
+    static int findPairsEqualsToKSorted(int[] arr, int k, IntPairSink sink) {
+        Arrays.sort(arr);
+        int count = 0;
+        int left = 0, right = arr.length - 1;
+        while (left < right) {
+            long sum = (long) arr[left] + arr[right];
+            if (sum < k) {
+                left++;
+            }
+            else if (sum > k) {
+                right--;
+            }
+            else if (arr[left] == arr[right]) {
+                for (int i = left; i < right; i++) {
+                    sink.accept(arr[left], arr[left]);
+                    count++;
+                }
+                break;
+            }
+            else {
+                int x = arr[left], y = arr[right];
+                int countX = 0, countY = 0;
+                while (arr[left] == x) {
+                    left++;
+                    countX++;
+                }
+                while (arr[right] == y) {
+                    right--;
+                    countY++;
+                }
+                for (int i = 0; i < countX; i++) {
+                    sink.accept(x, y);
+                }
+                for (int i = 0; i < countY; i++) {
+                    sink.accept(y, x);
+                }
+                count += countX + countY;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Như {@link #findPairsEqualsToK(int[], int, IntPairSink)}, chạy song song. Các cặp được trả về đúng thứ tự.
+     * <u>
+     *     <li>Chia các giá trị thành P phần theo các bit cao của hash: mỗi luồng đếm số phần tử mỗi phần trong 1 đoạn
+     *     của mảng, rồi ghi vị trí của chúng vào mảng của từng phần (cộng dồn số đếm để các đoạn không ghi đè nhau,
+     *     vị trí trong mỗi phần vẫn tăng dần). Mảng chỉ được duyệt 2 lần, không phải P lần
+     *     <li>Mỗi luồng dựng Map của 1 phần từ các vị trí của phần đó
+     *     <li>Chia mảng thành các đoạn, mỗi luồng tra cứu 1 đoạn trong Map của phần chứa k - arr[i] (chỉ đọc)
+     *     <li>Các cặp của mỗi đoạn được lưu tạm, sau đó trả về {@code sink} theo thứ tự các đoạn
+     * </u>
+     * @return số cặp tìm được
+     */
+    static int parallelFindPairsEqualsToK(int[] arr, int k, IntPairSink sink) {
+        int threads = ForkJoinPool.commonPool().getParallelism();
+        int partitionBits = 32 - Integer.numberOfLeadingZeros(Math.max(1, threads) - 1); // partitions = 2^bits >= threads
+        int partitions = 1 << partitionBits;
+        int chunks = chunks(arr.length);
+        int[][] next = new int[chunks][partitions]; // số phần tử của đoạn c trong phần p, rồi chỗ ghi tiếp theo
+        IntStream.range(0, chunks).parallel().forEach(c -> {
+            int[] counts = next[c];
+            for (int i = chunkStart(arr.length, chunks, c), to = chunkStart(arr.length, chunks, c + 1); i < to; i++) {
+                counts[partition(arr[i], partitionBits)]++;
+            }
+        });
+        int[][] indices = new int[partitions][];
+        for (int p = 0; p < partitions; p++) {
+            int offset = 0;
+            for (int c = 0; c < chunks; c++) {
+                int count = next[c][p];
+                next[c][p] = offset;
+                offset += count;
+            }
+            indices[p] = new int[offset];
+        }
+        IntStream.range(0, chunks).parallel().forEach(c -> {
+            int[] write = next[c];
+            for (int i = chunkStart(arr.length, chunks, c), to = chunkStart(arr.length, chunks, c + 1); i < to; i++) {
+                int p = partition(arr[i], partitionBits);
+                indices[p][write[p]++] = i;
+            }
+        });
+        IntIntHashMap[] maps = new IntIntHashMap[partitions];
+        IntStream.range(0, partitions).parallel().forEach(p -> {
+            IntIntHashMap map = new IntIntHashMap(indices[p].length);
+            for (int i : indices[p]) {
+                map.put(arr[i], i); // vị trí tăng dần: Map giữ vị trí cuối cùng như bản tuần tự
+            }
+            maps[p] = map;
+            indices[p] = null;
+        });
+
+        int[][] found = new int[chunks][];
+        int[] foundLength = new int[chunks];
+        IntStream.range(0, chunks).parallel().forEach(c -> {
+            int from = chunkStart(arr.length, chunks, c), to = chunkStart(arr.length, chunks, c + 1);
+            int[] pairs = new int[16];
+            int length = 0;
+            for (int i = from; i < to; i++) {
+                long partner = (long) k - arr[i];
+                if (partner != (int) partner) continue;
+                int index = maps[partition((int) partner, partitionBits)].get((int) partner, -1);
+                if (index != -1 && index != i) {
+                    if (length == pairs.length) pairs = Arrays.copyOf(pairs, 2 * length);
+                    pairs[length++] = arr[i];
+                    pairs[length++] = (int) partner;
+                }
             }
+            found[c] = pairs;
+            foundLength[c] = length;
+        });
+
+        int count = 0;
+        for (int c = 0; c < chunks; c++) {
+            for (int j = 0; j < foundLength[c]; j += 2) {
+                sink.accept(found[c][j], found[c][j + 1]);
+            }
+            count += foundLength[c] / 2;
         }
+        return count;
+    }
+
+    private static int partition(int value, int partitionBits) {
+        return partitionBits == 0 ? 0 : IntIntHashMap.hash(value) >>> (32 - partitionBits);
     }
 
     /**
@@ -123,12 +614,117 @@ public class DSAArrays {
             if (nums[i] != nums[j]) {
                 j++;
                 nums[j] = nums[i]; // Move the unique element to the next position
-                nums[i] = 0; // Update the current element to 0
             }
         }
+        if (nums.length > 0) {
+            Arrays.fill(nums, j + 1, nums.length, 0); // Update the remaining elements to 0
+        }
         return nums;
     }
 
+    /**
+     * Như {@link #removeDuplicates(int[])}, chạy song song.
+     * Input: list[] = {3,1,3,4,2,5,1}
+     * Output: 5, list[] = [1,2,3,4,5,0,0]
+     * <u>
+     *     <li>Sort song song bằng Arrays.parallelSort
+     *     <li>Chia mảng thành các đoạn, mỗi luồng đếm số phần tử duy nhất của đoạn mình (nums[i] != nums[i-1])
+     *     <li>Tổng dồn (prefix sum) các số đếm cho biết vị trí ghi của mỗi đoạn
+     *     <li>Mỗi luồng chép các phần tử duy nhất của đoạn mình vào vị trí đó, rồi chép lại vào mảng và ghi 0 phần còn lại
+     * </u>
+     * (Không ghi trực tiếp vào mảng được vì vị trí ghi của 1 đoạn có thể nằm trong đoạn trước đang được luồng khác đọc.)
+     * @return số phần tử duy nhất
+     */
+    static int parallelDedupe(int[] nums) {
+        Arrays.parallelSort(nums);
+        int n = nums.length;
+        int chunks = chunks(n);
+        int[] offsets = new int[chunks + 1];
+        IntStream.range(0, chunks).parallel().forEach(c -> {
+            int count = 0;
+            for (int i = chunkStart(n, chunks, c), end = chunkStart(n, chunks, c + 1); i < end; i++) {
+                if (i == 0 || nums[i] != nums[i - 1]) count++;
+            }
+            offsets[c + 1] = count;
+        });
+        for (int c = 0; c < chunks; c++) {
+            offsets[c + 1] += offsets[c];
+        }
+        int unique = offsets[chunks];
+        int[] uniques = new int[unique];
+        IntStream.range(0, chunks).parallel().forEach(c -> {
+            int j = offsets[c];
+            for (int i = chunkStart(n, chunks, c), end = chunkStart(n, chunks, c + 1); i < end; i++) {
+                if (i == 0 || nums[i] != nums[i - 1]) uniques[j++] = nums[i];
+            }
+        });
+        IntStream.range(0, chunks).parallel().forEach(c -> {
+            int from = chunkStart(n, chunks, c), to = chunkStart(n, chunks, c + 1);
+            int copied = Math.max(0, Math.min(to, unique) - from);
+            if (copied > 0) System.arraycopy(uniques, from, nums, from, copied);
+            Arrays.fill(nums, from + copied, to, 0);
+        });
+        return unique;
+    }
+
+    /**
+     * Như {@link #parallelDedupe(int[])} cho mảng long.
+     * @return số phần tử duy nhất
+     */
+    static int parallelDedupe(long[] nums) {
+        Arrays.parallelSort(nums);
+        int n = nums.length;
+        int chunks = chunks(n);
+        int[] offsets = new int[chunks + 1];
+        IntStream.range(0, chunks).parallel().forEach(c -> {
+            int count = 0;
+            for (int i = chunkStart(n, chunks, c), end = chunkStart(n, chunks, c + 1); i < end; i++) {
+                if (i == 0 || nums[i] != nums[i - 1]) count++;
+            }
+            offsets[c + 1] = count;
+        });
+        for (int c = 0; c < chunks; c++) {
+            offsets[c + 1] += offsets[c];
+        }
+        int unique = offsets[chunks];
+        long[] uniques = new long[unique];
+        IntStream.range(0, chunks).parallel().forEach(c -> {
+            int j = offsets[c];
+            for (int i = chunkStart(n, chunks, c), end = chunkStart(n, chunks, c + 1); i < end; i++) {
+                if (i == 0 || nums[i] != nums[i - 1]) uniques[j++] = nums[i];
+            }
+        });
+        IntStream.range(0, chunks).parallel().forEach(c -> {
+            int from = chunkStart(n, chunks, c), to = chunkStart(n, chunks, c + 1);
+            int copied = Math.max(0, Math.min(to, unique) - from);
+            if (copied > 0) System.arraycopy(uniques, from, nums, from, copied);
+            Arrays.fill(nums, from + copied, to, 0);
+        });
+        return unique;
+    }
+
+    /**
+     * Xóa các số trùng lặp, giữ nguyên thứ tự, thay = 0 vào cuối mảng. (Extra space: Set)
+     * Input: list[] = {3,1,3,4,2,5,1}
+     * Output: 5, list[] = [3,1,4,2,5,0,0]
+     * <u>
+     *     <li>Dùng {@link IntIntHashMap} làm Set (không boxing)
+     *     <li>Con trỏ ghi write: số chưa có trong Set thì thêm vào Set và ghi vào nums[write++]
+     * </u>
+     * @return số phần tử duy nhất
+     */
+    static int dedupePreservingOrder(int[] nums) {
+        IntIntHashMap seen = new IntIntHashMap(nums.length);
+        int write = 0;
+        for (int i = 0; i < nums.length; i++) {
+            if (seen.putIfAbsent(nums[i], i)) {
+                nums[write++] = nums[i];
+            }
+        }
+        Arrays.fill(nums, write, nums.length, 0);
+        return write;
+    }
+
     /**
      * Di chuyển 0 về cuối mảng không làm thay đổi thứ tự. Không extra space.
      * Input: list[] = {3,0,4,2,0,1}
@@ -144,9 +740,7 @@ public class DSAArrays {
         int write = 0;
         while (read < arr.length) {
             if (arr[read] != 0) {
-                int temp = arr[read];
-                arr[read] = arr[write];
-                arr[write] = temp;
+                MySwap.swap(arr, read, write);
                 write++;
             }
             read++;
@@ -154,6 +748,66 @@ public class DSAArrays {
         return arr;
     }
 
+    /**
+     * Như {@link #moveZeroes(int[])} nhưng không rẽ nhánh theo dữ liệu, nhanh khi 0 xuất hiện ngẫu nhiên
+     * (lệnh if của moveZeroes bị đoán sai khoảng 1 nửa số lần khi mật độ 0 là 50%).
+     * Input: list[] = {3,0,4,2,0,1}
+     * Output: 4, list[] = [3,4,2,1,0,0]
+     * <u>
+     *     <li>Luôn ghi arr[write] = arr[read], chỉ tăng con trỏ ghi khi giá trị khác 0
+     *     <li>(v | -v) >>> 31 bằng 1 khi v khác 0 (bit dấu của v hoặc của -v bật), bằng 0 khi v = 0
+     *     <li>Ghi 0 phần còn lại
+     * </u>
+     * @return số phần tử khác 0
+     */
+    static int compactNonZero(int[] arr) {
+        int write = 0;
+        for (int read = 0; read < arr.length; read++) {
+            int value = arr[read];
+            arr[write] = value;
+            write += (value | -value) >>> 31;
+        }
+        Arrays.fill(arr, write, arr.length, 0);
+        return write;
+    }
+
+    /**
+     * Như {@link #compactNonZero(int[])} cho mảng long.
+     * @return số phần tử khác 0
+     */
+    static int compactNonZero(long[] arr) {
+        int write = 0;
+        for (int read = 0; read < arr.length; read++) {
+            long value = arr[read];
+            arr[write] = value;
+            write += (int) ((value | -value) >>> 63);
+        }
+        Arrays.fill(arr, write, arr.length, 0);
+        return write;
+    }
+
+    /**
+     * Dồn các phần tử thỏa điều kiện lên đầu mảng, giữ nguyên thứ tự. Không extra space.
+     * Input: list[] = {3,-1,4,-2,0,1}, keep = v -> v > 0
+     * Output: 3, list[] = [3,4,1,...]
+     * <u>
+     *     <li>Luôn ghi arr[write] = value, chỉ tăng con trỏ ghi khi keep đúng
+     *     <li>Khác {@link #compactNonZero(int[])}, không đảm bảo không rẽ nhánh: keep là 1 lời gọi hàm bất kỳ,
+     *     JIT có thể dịch phép so sánh của nó thành lệnh nhảy
+     * </u>
+     * Phần sau các phần tử được giữ lại không xác định (còn giá trị cũ của mảng).
+     * @return số phần tử được giữ lại
+     */
+    static int compact(int[] arr, IntPredicate keep) {
+        int write = 0;
+        for (int read = 0; read < arr.length; read++) {
+            int value = arr[read];
+            arr[write] = value;
+            write += keep.test(value) ? 1 : 0;
+        }
+        return write;
+    }
+
     /**
      * Sắp xếp 3 giá trị 0,1,2. Không extra space.
      * Input: list[] = {1,0,1,2,2,1,0}
@@ -174,15 +828,11 @@ public class DSAArrays {
         int i =0, left =0, right = arr.length-1;
         while (i <= right) {
             if (arr[i] == 0) {
-                int temp = arr[left];
-                arr[left] = arr[i];
-                arr[i] = temp;
+                MySwap.swap(arr, left, i);
                 left++;
                 i++;
             } else if (arr[i] == 2) {
-                int temp = arr[right];
-                arr[right] = arr[i];
-                arr[i] = temp;
+                MySwap.swap(arr, right, i);
                 right--;
             }
             else {
@@ -192,6 +842,310 @@ public class DSAArrays {
         return arr;
     }
 
+    /**
+     * Sắp xếp các giá trị 0 .. k-1 (k nhỏ, vd. mã phân loại) bằng đếm: O(n + k), không so sánh.
+     * Input: list[] = {3,0,2,3,1,0}, k = 4
+     * Output: [0,0,1,2,3,3]
+     * <u>
+     *     <li>k &lt;= 3: dùng {@link #sortThree(int[])} (1 lần duyệt, đổi chỗ tại chỗ)
+     *     <li>Đếm số lần xuất hiện của mỗi giá trị (histogram)
+     *     <li>Ghi lại mảng: counts[0] số 0, rồi counts[1] số 1, ...
+     * </u>
+     * @throws IllegalArgumentException nếu có giá trị ngoài khoảng 0 .. k-1
+     */
+    static int[] countingSort(int[] arr, int k) {
+        checkBuckets(k, Integer.MAX_VALUE);
+        if (k <= 3) {
+            for (int value : arr) {
+                bucketOf(value, k);
+            }
+            return sortThree(arr);
+        }
+        int[] counts = new int[k];
+        for (int value : arr) {
+            counts[bucketOf(value, k)]++;
+        }
+        int position = 0;
+        for (int value = 0; value < k; value++) {
+            Arrays.fill(arr, position, position + counts[value], value);
+            position += counts[value];
+        }
+        return arr;
+    }
+
+    /**
+     * Như {@link #countingSort(int[], int)}, chạy song song.
+     * <u>
+     *     <li>Chia mảng thành các đoạn, mỗi luồng đếm histogram của đoạn mình
+     *     <li>Tính trước vị trí ghi của mỗi (đoạn, giá trị): starts[c][v] = tổng số giá trị &lt; v
+     *     + số giá trị v của các đoạn trước c
+     *     <li>Mỗi luồng ghi counts[c][v] số v từ starts[c][v], các vùng ghi không chồng lên nhau
+     * </u>
+     * @throws IllegalArgumentException nếu có giá trị ngoài khoảng 0 .. k-1
+     */
+    static int[] parallelCountingSort(int[] arr, int k) {
+        checkBuckets(k, Integer.MAX_VALUE);
+        int n = arr.length;
+        int chunks = chunks(n);
+        if (chunks == 1) return countingSort(arr, k);
+        int[][] counts = new int[chunks][];
+        IntStream.range(0, chunks).parallel().forEach(c -> {
+            int[] count = new int[k];
+            for (int i = chunkStart(n, chunks, c), end = chunkStart(n, chunks, c + 1); i < end; i++) {
+                count[bucketOf(arr[i], k)]++;
+            }
+            counts[c] = count;
+        });
+        int[][] starts = bucketStarts(counts, k);
+        IntStream.range(0, chunks).parallel().forEach(c -> {
+            for (int value = 0; value < k; value++) {
+                Arrays.fill(arr, starts[c][value], starts[c][value] + counts[c][value], value);
+            }
+        });
+        return arr;
+    }
+
+    /**
+     * Như {@link #countingSort(int[], int)} cho mảng byte, giá trị không dấu 0 .. k-1 với k &lt;= 256.
+     */
+    static byte[] countingSort(byte[] arr, int k) {
+        checkBuckets(k, 256);
+        int[] counts = new int[k];
+        for (byte value : arr) {
+            counts[bucketOf(value & 0xFF, k)]++;
+        }
+        int position = 0;
+        for (int value = 0; value < k; value++) {
+            Arrays.fill(arr, position, position + counts[value], (byte) value);
+            position += counts[value];
+        }
+        return arr;
+    }
+
+    /**
+     * Như {@link #parallelCountingSort(int[], int)} cho mảng byte, giá trị không dấu 0 .. k-1 với k &lt;= 256.
+     */
+    static byte[] parallelCountingSort(byte[] arr, int k) {
+        checkBuckets(k, 256);
+        int n = arr.length;
+        int chunks = chunks(n);
+        if (chunks == 1) return countingSort(arr, k);
+        int[][] counts = new int[chunks][];
+        IntStream.range(0, chunks).parallel().forEach(c -> {
+            int[] count = new int[k];
+            for (int i = chunkStart(n, chunks, c), end = chunkStart(n, chunks, c + 1); i < end; i++) {
+                count[bucketOf(arr[i] & 0xFF, k)]++;
+            }
+            counts[c] = count;
+        });
+        int[][] starts = bucketStarts(counts, k);
+        IntStream.range(0, chunks).parallel().forEach(c -> {
+            for (int value = 0; value < k; value++) {
+                Arrays.fill(arr, starts[c][value], starts[c][value] + counts[c][value], (byte) value);
+            }
+        });
+        return arr;
+    }
+
+    /**
+     * Vị trí ghi của mỗi (đoạn, giá trị): các giá trị theo thứ tự tăng dần, trong mỗi giá trị các đoạn theo thứ tự.
+     * <pre>
+     *   counts  đoạn 0: [2 1 0]   đoạn 1: [1 0 3]
+     *   starts  đoạn 0: [0 3 4]   đoạn 1: [2 4 4]     (0 0 | 0 1 | 1 | 2 2 2)
+     * </pre>
+     */
+    private static int[][] bucketStarts(int[][] counts, int k) {
+        int[][] starts = new int[counts.length][k];
+        int position = 0;
+        for (int value = 0; value < k; value++) {
+            for (int c = 0; c < counts.length; c++) {
+                starts[c][value] = position;
+                position += counts[c][value];
+            }
+        }
+        return starts;
+    }
+
+    private static void checkBuckets(int k, int max) {
+        if (k < 1 || k > max) throw new IllegalArgumentException("Number of buckets must be in 1.." + max + ": " + k);
+    }
+
+    private static int bucketOf(int value, int k) {
+        if (value < 0 || value >= k) throw new IllegalArgumentException("Value " + value + " is not in 0.." + (k - 1));
+        return value;
+    }
+
+    /*
+     * Các phiên bản cho LongIndexedIntArray: dữ liệu nằm trong file được map vào bộ nhớ (ngoài heap, hơn 2^31 phần tử).
+     * Các thuật toán chỉ duyệt tuần tự từ đầu tới cuối, để hệ điều hành đọc trước (read-ahead) các trang tiếp theo.
+     */
+
+    /**
+     * Như {@link #findMissingNumberXor(int[], int)}, các số nằm trong {@code values}.
+     */
+    static int findMissingNumber(LongIndexedIntArray values, int n) {
+        int xor = xorUpTo(n);
+        for (int s = 0; s < values.segmentCount(); s++) {
+            IntBuffer segment = values.segment(s);
+            while (segment.hasRemaining()) {
+                xor ^= segment.get();
+            }
+        }
+        return xor;
+    }
+
+    /**
+     * Như {@link #findDuplicateNumberBitset(int[])}, các số từ 1 - N nằm trong {@code values} (N = số phần tử).
+     */
+    static int findDuplicateNumber(LongIndexedIntArray values) {
+        int n = (int) Math.min(values.length(), Integer.MAX_VALUE);
+        long[] seen = new long[(n + 63) >>> 6];
+        for (int s = 0; s < values.segmentCount(); s++) {
+            IntBuffer segment = values.segment(s);
+            while (segment.hasRemaining()) {
+                int value = segment.get();
+                int bit = bitOf(value, n);
+                long mask = 1L << bit;
+                if ((seen[bit >>> 6] & mask) != 0) {
+                    return value;
+                }
+                seen[bit >>> 6] |= mask;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Như {@link #findAllDuplicates(int[])}, các số từ 1 - N nằm trong {@code values} (N = số phần tử).
+     */
+    static int[] findAllDuplicates(LongIndexedIntArray values) {
+        int n = (int) Math.min(values.length(), Integer.MAX_VALUE);
+        long[] seen = new long[(n + 63) >>> 6];
+        long[] duplicated = new long[seen.length];
+        for (int s = 0; s < values.segmentCount(); s++) {
+            IntBuffer segment = values.segment(s);
+            while (segment.hasRemaining()) {
+                int bit = bitOf(segment.get(), n);
+                long mask = 1L << bit;
+                if ((seen[bit >>> 6] & mask) != 0) {
+                    duplicated[bit >>> 6] |= mask;
+                }
+                seen[bit >>> 6] |= mask;
+            }
+        }
+        return valuesOf(duplicated);
+    }
+
+    /**
+     * Như {@link #findPairsEqualsToK(int[], int, IntPairSink)}: cùng các cặp, cùng thứ tự.
+     * <u>
+     *     <li>Lần duyệt 1: đánh dấu các giá trị có mặt trong {@link IntBitSet} (tối đa 512MB ngoài heap, dù có bao
+     *     nhiêu giá trị khác nhau), và đếm số lần xuất hiện của k/2 (kiểu long)
+     *     <li>k - x khác x: có trong tập là có cặp
+     *     <li>k - x = x: mọi lần xuất hiện của x trừ lần cuối đều có cặp (bản gốc: vị trí cuối cùng khác i),
+     *     đếm ngược số lần còn lại
+     * </u>
+     * @return số cặp tìm được
+     */
+    static long findPairsEqualsToK(LongIndexedIntArray arr, int k, IntPairSink sink) {
+        IntBitSet present = new IntBitSet();
+        long halves = 0;
+        for (int s = 0; s < arr.segmentCount(); s++) {
+            IntBuffer segment = arr.segment(s);
+            while (segment.hasRemaining()) {
+                int value = segment.get();
+                present.add(value);
+                if (2L * value == k) {
+                    halves++;
+                }
+            }
+        }
+        long count = 0;
+        for (int s = 0; s < arr.segmentCount(); s++) {
+            IntBuffer segment = arr.segment(s);
+            while (segment.hasRemaining()) {
+                int value = segment.get();
+                long partner = (long) k - value;
+                boolean paired;
+                if (partner != (int) partner) {
+                    paired = false;
+                }
+                else if (partner != value) {
+                    paired = present.contains((int) partner);
+                }
+                else {
+                    paired = --halves > 0;
+                }
+                if (paired) {
+                    sink.accept(value, (int) partner);
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Như {@link #moveZeroes(int[])}: chép các số khác 0 lên đầu (con trỏ ghi luôn đứng sau con trỏ đọc),
+     * rồi ghi 0 phần còn lại. Cả 2 con trỏ đều đi tuần tự.
+     */
+    static LongIndexedIntArray moveZeroes(LongIndexedIntArray arr) {
+        long write = 0;
+        for (int s = 0; s < arr.segmentCount(); s++) {
+            IntBuffer segment = arr.segment(s);
+            while (segment.hasRemaining()) {
+                int value = segment.get();
+                if (value != 0) {
+                    arr.set(write++, value);
+                }
+            }
+        }
+        arr.fill(write, arr.length(), 0);
+        return arr;
+    }
+
+    /**
+     * Như {@link #countingSort(int[], int)}: 1 lần đọc để đếm, 1 lần ghi tuần tự.
+     * @throws IllegalArgumentException nếu có giá trị ngoài khoảng 0 .. k-1
+     */
+    static LongIndexedIntArray countingSort(LongIndexedIntArray arr, int k) {
+        checkBuckets(k, Integer.MAX_VALUE);
+        long[] counts = new long[k];
+        for (int s = 0; s < arr.segmentCount(); s++) {
+            IntBuffer segment = arr.segment(s);
+            while (segment.hasRemaining()) {
+                counts[bucketOf(segment.get(), k)]++;
+            }
+        }
+        long position = 0;
+        for (int value = 0; value < k; value++) {
+            arr.fill(position, position + counts[value], value);
+            position += counts[value];
+        }
+        return arr;
+    }
+
+    /**
+     * Như {@link #dedupePreservingOrder(int[])}: các giá trị đã gặp được đánh dấu trong {@link IntBitSet}
+     * (tối đa 512MB ngoài heap, dù có bao nhiêu giá trị khác nhau), dữ liệu vẫn nằm trong file.
+     * @return số phần tử duy nhất
+     */
+    static long dedupePreservingOrder(LongIndexedIntArray arr) {
+        IntBitSet seen = new IntBitSet();
+        long write = 0;
+        for (int s = 0; s < arr.segmentCount(); s++) {
+            IntBuffer segment = arr.segment(s);
+            while (segment.hasRemaining()) {
+                int value = segment.get();
+                if (seen.add(value)) {
+                    arr.set(write++, value);
+                }
+            }
+        }
+        arr.fill(write, arr.length(), 0);
+        return write;
+    }
+
     public static void main(String[] args) {
         int[] list = {1, 2, 4, 6, 3, 7, 8, 10, 5};
         System.out.println("Missing: " + findMissingNumber(list, list.length+1));
@@ -0,0 +1,47 @@
+package it.ngoton.problems;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+
+/**
+ * A set of {@code int} values, one bit for each of the <code>2<sup>32</sup></code> values: 512MB at most, whatever
+ * the number of elements added, where a hash set of billions of distinct values would not fit on the heap.
+ * <pre>
+ *   value   = 0x1234_5678        read as unsigned
+ *   page    = value >>> 20       0x123         4096 pages of 2^20 bits (128KB)
+ *   word    = (value >>> 6) & (2^14 - 1)       in the page
+ *   bit     = value & 63                       in the word
+ * </pre>
+ * The pages are allocated outside of the heap when a value first falls in them, so a set of close values stays small.
+ * They are released by the garbage collector.
+ */
+class IntBitSet {
+    private static final int PAGE_SHIFT = 20;
+    private static final int PAGES = 1 << (Integer.SIZE - PAGE_SHIFT);
+    private static final int WORD_MASK = (1 << (PAGE_SHIFT - 6)) - 1;
+
+    private final LongBuffer[] pages = new LongBuffer[PAGES];
+
+    boolean contains(int value) {
+        LongBuffer page = pages[value >>> PAGE_SHIFT];
+        return page != null && (page.get((value >>> 6) & WORD_MASK) & (1L << value)) != 0;
+    }
+
+    /**
+     * @return {@code true} if the value was not in the set
+     */
+    boolean add(int value) {
+        LongBuffer page = pages[value >>> PAGE_SHIFT];
+        if (page == null) {
+            page = ByteBuffer.allocateDirect(1 << (PAGE_SHIFT - 3)).order(ByteOrder.nativeOrder()).asLongBuffer();
+            pages[value >>> PAGE_SHIFT] = page;
+        }
+        int word = (value >>> 6) & WORD_MASK;
+        long bits = page.get(word);
+        long mask = 1L << value; // the shift only uses the low 6 bits
+        if ((bits & mask) != 0) return false;
+        page.put(word, bits | mask);
+        return true;
+    }
+}
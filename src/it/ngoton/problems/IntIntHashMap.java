@@ -0,0 +1,130 @@
+package it.ngoton.problems;
+
+/**
+ * A map from {@code int} to {@code int} without boxing: open addressing with linear probing in two parallel arrays.
+ * <pre>
+ *   put(7, 0), put(15, 1), put(3, 2)          capacity 8, slot = hash(key) & 7
+ *   keys   [ 0  0  7 15  0  0  3  0]          15 collides with 7 in slot 2, it probes on to slot 3
+ *   values [ 0  0  0  1  0  0  2  0]
+ * </pre>
+ * Key {@code 0} marks a free slot, so the key {@code 0} itself is stored outside of the arrays ({@code hasZeroKey}).
+ * <p>The table doubles when it is 3/4 full, keys cannot be removed.
+ */
+class IntIntHashMap {
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    private int[] keys;
+    private int[] values;
+    private int mask;
+    private int size;
+    private int resizeAt;
+    private boolean hasZeroKey;
+    private int zeroValue;
+
+    IntIntHashMap(int expectedSize) {
+        allocate(capacityFor(expectedSize));
+    }
+
+    private static int capacityFor(int expectedSize) {
+        long needed = Math.max(4, (long) expectedSize * 4 / 3 + 1);
+        return (int) Math.min(MAX_CAPACITY, Long.highestOneBit(needed - 1) << 1);
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+        resizeAt = capacity == MAX_CAPACITY ? capacity - 1 : capacity / 4 * 3;
+    }
+
+    /**
+     * Spreads the bits of the key (multiplication by the golden ratio), so consecutive keys do not fill
+     * consecutive slots. The high bits are the best mixed, {@link DSAArrays} uses them to pick a partition.
+     */
+    static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    void put(int key, int value) {
+        if (key == 0) {
+            if (!hasZeroKey) size++;
+            hasZeroKey = true;
+            zeroValue = value;
+            return;
+        }
+        int slot = hash(key) & mask;
+        while (keys[slot] != 0) {
+            if (keys[slot] == key) {
+                values[slot] = value;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        if (size >= resizeAt) {
+            if (keys.length == MAX_CAPACITY) throw new IllegalStateException("IntIntHashMap is full");
+            grow();
+            put(key, value);
+            return;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        size++;
+    }
+
+    /**
+     * Adds the key only if it is not in the map yet, so the map can be used as a set of {@code int}.
+     * @return whether the key was added
+     */
+    boolean putIfAbsent(int key, int value) {
+        if (containsKey(key)) return false;
+        put(key, value);
+        return true;
+    }
+
+    /**
+     * @return the value of {@code key}, {@code missing} if the key is not in the map
+     */
+    int get(int key, int missing) {
+        if (key == 0) return hasZeroKey ? zeroValue : missing;
+        int slot = hash(key) & mask;
+        int k;
+        while ((k = keys[slot]) != 0) {
+            if (k == key) return values[slot];
+            slot = (slot + 1) & mask;
+        }
+        return missing;
+    }
+
+    boolean containsKey(int key) {
+        if (key == 0) return hasZeroKey;
+        int slot = hash(key) & mask;
+        int k;
+        while ((k = keys[slot]) != 0) {
+            if (k == key) return true;
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void grow() {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(keys.length << 1);
+        for (int i = 0; i < oldKeys.length; i++) {
+            int key = oldKeys[i];
+            if (key != 0) {
+                int slot = hash(key) & mask;
+                while (keys[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = key;
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+}
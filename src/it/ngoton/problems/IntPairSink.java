@@ -0,0 +1,9 @@
+package it.ngoton.problems;
+
+/**
+ * Receives the pairs found by {@link DSAArrays#findPairsEqualsToK(int[], int, IntPairSink)}, without boxing.
+ */
+@FunctionalInterface
+interface IntPairSink {
+    void accept(int first, int second);
+}
@@ -0,0 +1,165 @@
+package it.ngoton.problems;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * An {@code int} array with a {@code long} index, stored in a file and memory-mapped, so it can hold more than
+ * <code>2<sup>31</sup></code> elements and does not use the heap.
+ * <p>One mapping is limited to 2GB, so the file is mapped in segments of <code>2<sup>28</sup></code> ints (1GB):
+ * <pre>
+ *   index      = segment * 2^28 + offset
+ *   segment    = index >>> 28
+ *   offset     = index & (2^28 - 1)
+ * </pre>
+ * The operating system pages the data in and out, sequential scans ({@link #segment(int)}) are the fastest.
+ * <p>The mappings are released by the garbage collector, {@link #close()} only closes the file.
+ */
+class LongIndexedIntArray implements Closeable {
+    static final int SEGMENT_SHIFT = 28;
+    static final int SEGMENT_SIZE = 1 << SEGMENT_SHIFT;
+    private static final int SEGMENT_MASK = SEGMENT_SIZE - 1;
+    private static final int FILL_CHUNK = 8192;
+
+    private final FileChannel channel;
+    private final ByteBuffer[] bytes;
+    private final IntBuffer[] segments;
+    private final long length;
+
+    private LongIndexedIntArray(FileChannel channel, ByteBuffer[] bytes, ByteOrder order, long length) {
+        this.channel = channel;
+        this.bytes = bytes;
+        this.segments = new IntBuffer[bytes.length];
+        for (int s = 0; s < bytes.length; s++) {
+            segments[s] = bytes[s].order(order).asIntBuffer();
+        }
+        this.length = length;
+    }
+
+    /**
+     * Maps an existing file of ints, a trailing partial int is ignored.
+     * @param writable whether {@link #set} may change the file
+     */
+    static LongIndexedIntArray open(Path file, ByteOrder order, boolean writable) throws IOException {
+        FileChannel channel = writable
+                ? FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)
+                : FileChannel.open(file, StandardOpenOption.READ);
+        return map(channel, channel.size() / Integer.BYTES, order, writable);
+    }
+
+    /**
+     * Creates (or truncates) a file of {@code length} ints, all 0.
+     */
+    static LongIndexedIntArray create(Path file, long length, ByteOrder order) throws IOException {
+        if (length < 0) throw new IllegalArgumentException("Negative length: " + length);
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (length > 0) {
+            channel.write(ByteBuffer.allocate(1), length * Integer.BYTES - 1); // extends the file, the rest reads as 0
+        }
+        return map(channel, length, order, true);
+    }
+
+    private static LongIndexedIntArray map(FileChannel channel, long length, ByteOrder order, boolean writable) throws IOException {
+        try {
+            FileChannel.MapMode mode = writable ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY;
+            ByteBuffer[] bytes = new ByteBuffer[(int) ((length + SEGMENT_MASK) >>> SEGMENT_SHIFT)];
+            for (int s = 0; s < bytes.length; s++) {
+                long first = (long) s << SEGMENT_SHIFT;
+                long ints = Math.min(SEGMENT_SIZE, length - first);
+                bytes[s] = channel.map(mode, first * Integer.BYTES, ints * Integer.BYTES);
+            }
+            return new LongIndexedIntArray(channel, bytes, order, length);
+        }
+        catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * An array on the heap with the same interface, for small inputs and tests. The elements are copied into
+     * segments of <code>2<sup>28</sup></code> ints like a mapped file: one buffer cannot hold more than 2GB.
+     */
+    static LongIndexedIntArray wrap(int[] array) {
+        ByteBuffer[] bytes = new ByteBuffer[(array.length + SEGMENT_MASK) >>> SEGMENT_SHIFT];
+        for (int s = 0; s < bytes.length; s++) {
+            int first = s << SEGMENT_SHIFT;
+            int ints = Math.min(SEGMENT_SIZE, array.length - first);
+            bytes[s] = ByteBuffer.allocate(ints * Integer.BYTES).order(ByteOrder.nativeOrder());
+            bytes[s].asIntBuffer().put(array, first, ints);
+        }
+        return new LongIndexedIntArray(null, bytes, ByteOrder.nativeOrder(), array.length);
+    }
+
+    long length() {
+        return length;
+    }
+
+    int get(long index) {
+        return segments[(int) (index >>> SEGMENT_SHIFT)].get((int) (index & SEGMENT_MASK));
+    }
+
+    void set(long index, int value) {
+        segments[(int) (index >>> SEGMENT_SHIFT)].put((int) (index & SEGMENT_MASK), value);
+    }
+
+    /**
+     * Sets the elements {@code [from, to)} to {@code value}.
+     */
+    void fill(long from, long to, int value) {
+        if (from < 0 || to > length) {
+            throw new IndexOutOfBoundsException("Range [" + from + ", " + to + ") out of bounds for length " + length);
+        }
+        if (from >= to) return;
+        int[] chunk = new int[(int) Math.min(FILL_CHUNK, to - from)];
+        Arrays.fill(chunk, value);
+        for (long i = from; i < to; ) {
+            IntBuffer segment = segments[(int) (i >>> SEGMENT_SHIFT)].duplicate();
+            segment.position((int) (i & SEGMENT_MASK));
+            long end = Math.min(to, i + segment.remaining());
+            for (; i < end; ) {
+                int count = (int) Math.min(chunk.length, end - i);
+                segment.put(chunk, 0, count); // bulk copy instead of one bounds-checked put per element
+                i += count;
+            }
+        }
+    }
+
+    int segmentCount() {
+        return segments.length;
+    }
+
+    /**
+     * The elements {@code [s * 2^28, (s + 1) * 2^28)} as a buffer with its own position, for fast sequential loops.
+     */
+    IntBuffer segment(int s) {
+        return segments[s].duplicate();
+    }
+
+    /**
+     * Writes the changes back to the file.
+     */
+    void force() {
+        for (ByteBuffer segment : bytes) {
+            if (segment instanceof MappedByteBuffer) {
+                ((MappedByteBuffer) segment).force();
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+    }
+}
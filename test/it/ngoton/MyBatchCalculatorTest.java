@@ -0,0 +1,45 @@
+package it.ngoton;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MyBatchCalculatorTest {
+
+    @Test
+    void oneOutputLinePerInputLineInOrder(@TempDir Path directory) throws IOException {
+        String deep = "(".repeat(100_000) + "1" + ")".repeat(100_000);
+        StringBuilder input = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            input.append(i).append(" * 2\n");
+            if (i == 100) input.append(deep).append('\n');
+            if (i == 200) input.append("1 +\r\n");
+        }
+        input.append("7 - 9"); // no final line break
+        Path in = Files.writeString(directory.resolve("in.txt"), input, StandardCharsets.UTF_8);
+        Path out = directory.resolve("out.txt");
+
+        // chunks much smaller than the deep line, which makes the buffer grow
+        MyBatchCalculator.Report report = new MyBatchCalculator(3, 64, new MyExpressionCache(16)).run(in, out);
+
+        List<String> lines = Files.readAllLines(out, StandardCharsets.UTF_8);
+        assertEquals(503, lines.size());
+        assertEquals(503, report.lines());
+        assertEquals(2, report.errors());
+        assertEquals("0", lines.get(0));
+        assertEquals("200", lines.get(100));
+        assertTrue(lines.get(101).startsWith("ERROR java.lang.IllegalArgumentException"), lines.get(101));
+        assertEquals("202", lines.get(102));
+        assertTrue(lines.get(202).startsWith("ERROR"), lines.get(202));
+        assertEquals("998", lines.get(501));
+        assertEquals("-2", lines.get(502));
+    }
+}
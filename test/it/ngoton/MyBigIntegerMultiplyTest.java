@@ -0,0 +1,117 @@
+package it.ngoton;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.file.Path;
+import java.util.Properties;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * {@link MyBigInteger#karatsuba} against {@link MyBigInteger#schoolbook} and {@link BigInteger}, and the
+ * {@link MyTuning} thresholds that choose between them.
+ */
+class MyBigIntegerMultiplyTest {
+    private final int karatsubaThreshold = MyTuning.karatsubaThreshold;
+    private final int parallelThreshold = MyTuning.parallelThreshold;
+
+    @AfterEach
+    void restoreThresholds() {
+        MyTuning.karatsubaThreshold = karatsubaThreshold;
+        MyTuning.parallelThreshold = parallelThreshold;
+    }
+
+    @Test
+    void karatsubaHasAConservativeDefault() {
+        assertEquals(64, MyTuning.DEFAULT_KARATSUBA_THRESHOLD);
+        if (System.getProperty("it.ngoton.tuning.karatsuba.threshold") == null) {
+            assertEquals(MyTuning.DEFAULT_KARATSUBA_THRESHOLD, MyTuning.karatsubaThreshold());
+        }
+    }
+
+    @Test
+    void karatsubaMatchesSchoolbook() {
+        Random random = new Random(1);
+        int[][] sizes = {{4, 4}, {5, 4}, {7, 5}, {64, 64}, {65, 64}, {100, 51}, {100, 50}, {100, 49}, {1000, 10},
+                {1000, 999}, {333, 777}, {257, 128}, {4096, 4096}};
+        for (int threshold : new int[]{4, 5, 16, 64}) {
+            for (int[] size : sizes) {
+                if (Math.min(size[0], size[1]) < threshold) continue;
+                int[] a = randomDigits(random, size[0]), b = randomDigits(random, size[1]);
+                assertArrayEquals(MyBigInteger.schoolbook(a, b), MyBigInteger.karatsuba(a, b, threshold),
+                        size[0] + " x " + size[1] + " digits, threshold " + threshold);
+            }
+        }
+    }
+
+    /**
+     * Runs of zeros and nines make halves with leading zeros, empty halves and carries through whole halves.
+     */
+    @Test
+    void karatsubaHandlesZerosAndCarries() {
+        String[] values = {"1" + "0".repeat(99), "9".repeat(100), "1" + "0".repeat(60) + "1", "9".repeat(30) + "0".repeat(70),
+                "5" + "0".repeat(40) + "9".repeat(40), "1" + "0".repeat(199), "9".repeat(7)};
+        MyTuning.karatsubaThreshold = 4;
+        for (String x : values) {
+            for (String y : values) {
+                assertEquals(new BigInteger(x).multiply(new BigInteger(y)).toString(),
+                        new MyBigInteger(x).multiply(new MyBigInteger(y)).toString(), x + " * " + y);
+            }
+        }
+    }
+
+    @Test
+    void multiplyMatchesBigInteger() {
+        Random random = new Random(2);
+        MyTuning.karatsubaThreshold = 16;
+        for (int i = 0; i < 200; i++) {
+            BigInteger x = new BigInteger(1 + random.nextInt(2000), random);
+            BigInteger y = new BigInteger(1 + random.nextInt(2000), random);
+            if (random.nextBoolean()) x = x.negate();
+            if (random.nextBoolean()) y = y.negate();
+            assertEquals(x.multiply(y).toString(),
+                    new MyBigInteger(x.toString()).multiply(new MyBigInteger(y.toString())).toString());
+        }
+    }
+
+    @Test
+    void loadUsesFileOfThisHost(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("tuning.properties");
+        assertFalse(MyTuning.load(file));
+
+        Properties tuning = new Properties();
+        tuning.setProperty("karatsuba.threshold", "48");
+        tuning.setProperty("parallel.threshold", "32");
+        tuning.setProperty("processors", Integer.toString(Runtime.getRuntime().availableProcessors() + 1));
+        MyTuning.save(tuning, file);
+        assertFalse(MyTuning.load(file), "calibrated on another CPU count");
+        assertEquals(karatsubaThreshold, MyTuning.karatsubaThreshold());
+
+        tuning.setProperty("processors", Integer.toString(Runtime.getRuntime().availableProcessors()));
+        MyTuning.save(tuning, file);
+        assertTrue(MyTuning.load(file));
+        if (System.getProperty("it.ngoton.tuning.karatsuba.threshold") == null) {
+            assertEquals(48, MyTuning.karatsubaThreshold());
+        }
+        if (System.getProperty("it.ngoton.tuning.parallel.threshold") == null) {
+            assertEquals(32, MyTuning.parallelThreshold());
+        }
+    }
+
+    private static int[] randomDigits(Random random, int length) {
+        int[] digits = new int[length];
+        for (int i = 0; i < length; i++) {
+            digits[i] = random.nextInt(10);
+        }
+        digits[length - 1] = 1 + random.nextInt(9);
+        return digits;
+    }
+}
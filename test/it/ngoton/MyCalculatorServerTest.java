@@ -0,0 +1,52 @@
+package it.ngoton;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+class MyCalculatorServerTest {
+
+    @Test
+    void timeoutCancelsTheEvaluationAndCloseDropsTheClients() throws IOException {
+        MyCalculatorServer server = new MyCalculatorServer(0, 1, 200, new MyExpressionCache(16));
+        server.start();
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.port());
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             Writer out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8)) {
+            out.write("factorial(10000000)\n2 ^ 10\n");
+            out.flush();
+            assertEquals("ERR timeout", in.readLine());
+            // the only slot is free again once the factorial has stopped
+            assertTimeoutPreemptively(Duration.ofSeconds(10), () -> assertEquals("OK 1024", in.readLine()));
+
+            server.close();
+            assertNull(assertTimeoutPreemptively(Duration.ofSeconds(10), in::readLine));
+        }
+        finally {
+            server.close();
+        }
+    }
+
+    @Test
+    void interruptedCallersStillGetTheirResult() {
+        Thread.currentThread().interrupt();
+        try {
+            assertEquals(new MyBigInteger(3628800), MyBigInteger.factorial(10));
+        }
+        finally {
+            Thread.interrupted();
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package it.ngoton;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MyExpressionCacheTest {
+
+    @Test
+    void repeatedSourceIsCompiledOnce() {
+        MyExpressionCache cache = new MyExpressionCache(16);
+        MyExpression first = cache.compile("1 + 2");
+        assertSame(first, cache.compile("1 + 2"));
+        assertEquals(1, cache.expressionHits());
+        assertEquals(1, cache.expressionMisses());
+        assertEquals(new MyBigInteger(3), cache.calculate("1 + 2"));
+        assertEquals("0.5", cache.calculateDecimal("1 / 2.0").toString().substring(0, 3));
+    }
+
+    @Test
+    void sizeIsBounded() {
+        MyExpressionCache cache = new MyExpressionCache(8);
+        MyExpression first = cache.compile("0");
+        for (int i = 1; i < 1000; i++) {
+            cache.compile(Integer.toString(i));
+        }
+        assertNotSame(first, cache.compile("0"));
+        assertTrue(cache.size() <= 8, "size " + cache.size());
+    }
+
+    @Test
+    void recentlyUsedExpressionSurvivesEviction() {
+        MyExpressionCache cache = new MyExpressionCache(8);
+        MyExpression first = cache.compile("0");
+        for (int i = 1; i < 1000; i++) {
+            assertSame(first, cache.compile("0"));
+            cache.compile(Integer.toString(i));
+        }
+    }
+
+    @Test
+    void concurrentUseKeepsTheBounds() throws Exception {
+        MyExpressionCache cache = new MyExpressionCache(64, 1 << 16);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                int seed = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 2000; i++) {
+                        int n = (i * 31 + seed) % 200;
+                        assertEquals(new MyBigInteger(n).pow(3), cache.calculate(n + " ^ 3"));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+        finally {
+            executor.shutdown();
+        }
+        assertTrue(cache.size() <= 64, "size " + cache.size());
+        assertTrue(cache.memoBytes() <= 1 << 16, "memo " + cache.memoBytes());
+        assertEquals(8000, cache.expressionHits() + cache.expressionMisses());
+    }
+
+    @Test
+    void disabledCacheStillCompiles() {
+        MyExpressionCache cache = new MyExpressionCache(0);
+        assertEquals(new MyBigInteger(6), cache.calculate("2 * 3"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void memoTableIsSharedBetweenExpressions() {
+        MyExpressionCache cache = new MyExpressionCache(16, 1 << 20);
+        MyBigInteger factorial = cache.calculate("factorial(100)");
+        assertEquals(factorial.add(MyBigInteger.ONE), cache.calculate("factorial(100) + 1"));
+        assertEquals(1, cache.memoHits());
+        assertTrue(cache.memoBytes() > 0);
+        cache.clear();
+        assertEquals(0, cache.memoBytes());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void onlyCalculateBindsSignsToNumbers() {
+        assertEquals(new MyBigInteger(-4), MyExpressionCache.DEFAULT.calculate("-2 ^ 2"));
+        assertEquals(new MyBigInteger(4), MyExpressionCache.CALCULATE.calculate("-2 ^ 2"));
+    }
+}
@@ -0,0 +1,131 @@
+package it.ngoton;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * The grammar of {@link MyExpression}, and the {@code "x op y"} results {@link MyBigInteger#calculate} had before it.
+ */
+class MyExpressionTest {
+    private static final String[] OPERANDS = {"0", "3", "-2", "12", "-7", "-45", "100000000000000000000", "-99999999999"};
+
+    /**
+     * {@code calculate} before {@link MyExpression}: split on spaces, one operator between two numbers.
+     */
+    private static MyBigInteger original(String expression) {
+        String[] xOperatorY = expression.split(" ");
+        MyBigInteger x = new MyBigInteger(xOperatorY[0]);
+        MyBigInteger y = new MyBigInteger(xOperatorY[2]);
+        switch (xOperatorY[1].charAt(0)) {
+            case '*':
+                return x.multiply(y);
+            case '+':
+                return x.add(y);
+            case '-':
+                return x.subtract(y);
+            case '/':
+                return x.divide(y);
+            case '%':
+                return x.mod(y);
+            case '^':
+                return x.pow(y.intValue());
+            default : throw new IllegalArgumentException("Operation not supported!");
+        }
+    }
+
+    @Test
+    void calculateKeepsTheResultsOfXOpY() {
+        for (String x : OPERANDS) {
+            for (String y : OPERANDS) {
+                for (String operator : new String[]{"+", "-", "*", "/", "%", "^"}) {
+                    if (operator.equals("^") && (y.length() > 3 || x.equals("0") && y.startsWith("-"))) continue;
+                    String expression = x + " " + operator + " " + y;
+                    assertEquals(outcome(() -> original(expression)), outcome(() -> MyBigInteger.calculate(expression)),
+                            expression);
+                }
+            }
+        }
+    }
+
+    /**
+     * The result, or the class of the exception (division by zero).
+     */
+    private static Object outcome(Supplier<MyBigInteger> calculation) {
+        try {
+            return calculation.get();
+        }
+        catch (RuntimeException e) {
+            return e.getClass();
+        }
+    }
+
+    @Test
+    void calculateBindsTheSignToTheNumber() {
+        assertEquals(new MyBigInteger(4), MyBigInteger.calculate("-2 ^ 2"));
+        assertEquals(new MyBigInteger(-8), MyBigInteger.calculate("-2 ^ 3"));
+        assertEquals(new MyBigInteger(-4), MyBigInteger.calculate("-(2 ^ 2)"));
+        assertEquals(new MyBigInteger(-4), MyBigInteger.calculate("- 2 ^ 2"));
+        assertEquals(new MyBigInteger(1), MyBigInteger.calculate("3 -2"));
+        assertEquals(new MyBigInteger(-1), MyBigInteger.calculate("3 - -2 ^ 2"));
+    }
+
+    @Test
+    void compileFollowsMathematicalPrecedence() {
+        assertEquals(new MyBigInteger(-4), integer("-2 ^ 2"));
+        assertEquals(new MyBigInteger(512), integer("2 ^ 3 ^ 2"));
+        assertEquals(new MyBigInteger(14), integer("2 + 3 * 4"));
+        assertEquals(new MyBigInteger(20), integer("(2 + 3) * 4"));
+        assertEquals(new MyBigInteger(1), integer("10 - 4 - 5"));
+        assertEquals(new MyBigInteger(2), integer("20 / 5 % 3 * 2 / 4 + 2 - 1 * 0 + (0)"));
+        assertEquals(new MyBigInteger(5), integer("--5"));
+        assertEquals(new MyBigInteger(5), integer("+5"));
+        assertEquals(new MyBigInteger(126), integer("factorial(5) + gcd(48, 18)"));
+        assertEquals(new MyBigInteger(1000), integer("pow(10, 3)"));
+        assertEquals(new MyBigInteger(12), integer("sqrt(150)"));
+    }
+
+    @Test
+    void variablesAreBoundInOrderOfAppearance() {
+        MyExpression f = MyExpression.compile("gcd(x, 12) + -(x - y) ^ 2");
+        assertEquals(List.of("x", "y"), f.variables());
+        assertEquals(new MyBigInteger(-45), f.evaluate(new MyBigInteger(8), new MyBigInteger(1)));
+        assertEquals(new MyBigInteger(-45), f.evaluate(Map.of("x", new MyBigInteger(8), "y", new MyBigInteger(1))));
+        assertThrows(IllegalArgumentException.class, () -> f.evaluate(new MyBigInteger(8)));
+        assertThrows(IllegalArgumentException.class, () -> f.evaluate(Map.of("x", new MyBigInteger(8))));
+    }
+
+    @Test
+    void decimalEvaluation() {
+        assertEquals("3.75", MyExpression.compile("1.5 * 2.5").evaluateDecimal().toString());
+        assertEquals("2.25", MyExpression.compile("1.5 ^ 2").evaluateDecimal().toString());
+        assertThrows(ArithmeticException.class, () -> MyExpression.compile("1.5 + 1").evaluate());
+    }
+
+    @Test
+    void malformedExpressionsAreRejected() {
+        for (String source : new String[]{"", "1 +", "(1", "1)", "2 $ 3", "foo(1)", "gcd(1)", "1..2", "sqrt()"}) {
+            assertThrows(IllegalArgumentException.class, () -> MyExpression.compile(source), source);
+        }
+    }
+
+    @Test
+    void depthIsBounded() {
+        int nesting = MyExpression.MAX_NESTING - 1;
+        assertEquals(MyBigInteger.ONE, integer("(".repeat(nesting) + "1" + ")".repeat(nesting)));
+        assertEquals(new MyBigInteger(MyExpression.MAX_HEIGHT), integer("1" + " + 1".repeat(MyExpression.MAX_HEIGHT - 1)));
+        for (String source : new String[]{"(".repeat(100_000) + "1" + ")".repeat(100_000), "-".repeat(100_000) + "1",
+                "2" + " ^ 2".repeat(100_000), "1" + " + 1".repeat(MyExpression.MAX_HEIGHT)}) {
+            assertThrows(IllegalArgumentException.class, () -> MyExpression.compile(source));
+        }
+    }
+
+    private static MyBigInteger integer(String source) {
+        return MyExpression.compile(source).evaluate();
+    }
+}